@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs every benchmark in this package with the GC profiler attached,
+// so allocation rates are reported next to throughput.  Any standard
+// JMH options can be passed on the command line, for example
+// "-p workload=PIGEONHOLE -p size=6" or "PipelineBenchmark.collapse".
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if(commandLine.getIncludes().isEmpty()) {
+			options.include("benchmarks\\..*Benchmark");
+		}
+		options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+
+}
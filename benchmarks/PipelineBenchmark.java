@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
+
+import processing.data.XML;
+import resolution.LogicParser;
+
+// Throughput of parsing, of each CNF pipeline stage and of the single
+// pass conversion that replaces them.  The stages
+// rewrite the tree in place, so every invocation gets a fresh tree that
+// has been taken up to the stage under test by an untimed setup.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@State(Scope.Thread)
+	public static class Parsed extends PipelineInput {
+		@Setup(Level.Invocation) public void setup() { prepare(0); }
+	}
+
+	@State(Scope.Thread)
+	public static class BiconditionsEliminated extends PipelineInput {
+		@Setup(Level.Invocation) public void setup() { prepare(1); }
+	}
+
+	@State(Scope.Thread)
+	public static class ConditionsEliminated extends PipelineInput {
+		@Setup(Level.Invocation) public void setup() { prepare(2); }
+	}
+
+	@State(Scope.Thread)
+	public static class NegationsMoved extends PipelineInput {
+		@Setup(Level.Invocation) public void setup() { prepare(3); }
+	}
+
+	@State(Scope.Thread)
+	public static class Distributed extends PipelineInput {
+		@Setup(Level.Invocation) public void setup() { prepare(4); }
+	}
+
+	@Benchmark
+	public XML toXML(PipelineInput input) {
+		return LogicParser.toXML(input.formula);
+	}
+
+	@Benchmark
+	public void eliminateBiconditions(Parsed input) {
+		input.resolution.eliminateBiconditions();
+	}
+
+	@Benchmark
+	public void eliminateConditions(BiconditionsEliminated input) {
+		input.resolution.eliminateConditions();
+	}
+
+	@Benchmark
+	public void moveNegationInwards(ConditionsEliminated input) {
+		input.resolution.moveNegationInwards();
+	}
+
+	@Benchmark
+	public void distributeOrsOverAnds(NegationsMoved input) {
+		input.resolution.distributeOrsOverAnds();
+	}
+
+	@Benchmark
+	public void collapse(Distributed input) {
+		input.resolution.collapse();
+	}
+
+	@Benchmark
+	public void convertToCnf(Parsed input) {
+		input.resolution.convertToCnf();
+	}
+
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import resolution.LogicParser;
+import resolution.Resolution;
+
+// Benchmark state holding one generated formula.  prepare() parses it
+// and runs the first stages of the CNF pipeline, so a benchmark can time
+// a single stage on a tree that has been through every earlier one.
+@State(Scope.Thread)
+public class PipelineInput {
+
+	@Param({ "RANDOM_3CNF", "PIGEONHOLE", "BICONDITION_CHAIN", "NEGATION_NESTING" })
+	public Workload workload;
+
+	@Param({ "4", "8" })
+	public int size;
+
+	public String formula;
+	public Resolution resolution;
+
+	@Setup
+	public void generate() {
+		formula = workload.generate(size, new Random(42));
+	}
+
+	// Stages in pipeline order: 1 eliminateBiconditions, 2 eliminateConditions,
+	// 3 moveNegationInwards, 4 distributeOrsOverAnds, 5 collapse
+	protected void prepare(int stages) {
+		resolution = new Resolution(null, LogicParser.toXML(formula));
+		if(stages >= 1) resolution.eliminateBiconditions();
+		if(stages >= 2) resolution.eliminateConditions();
+		if(stages >= 3) resolution.moveNegationInwards();
+		if(stages >= 4) resolution.distributeOrsOverAnds();
+		if(stages >= 5) resolution.collapse();
+	}
+
+}
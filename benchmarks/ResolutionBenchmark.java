@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import resolution.AllPairsResolution;
+import resolution.Budget;
+import resolution.CdclSolver;
+import resolution.GivenClauseResolution;
+import resolution.Outcome;
+import resolution.ParallelResolution;
+import resolution.ResolutionStrategy;
+
+// Throughput of applyResolution() on collapsed workloads, per strategy.
+// The saturation strategies do not finish the larger pigeonhole sets in
+// any reasonable time, so every run is bounded by a time limit.  Runs
+// the limit stopped are counted as "unknown" next to the throughput,
+// which for them only measures the limit.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+	private static final long TIME_LIMIT_MS = 2000;
+
+	public enum Strategy {
+		ALL_PAIRS, GIVEN_CLAUSE, UNITS, PARALLEL, CDCL;
+
+		ResolutionStrategy create() {
+			switch(this) {
+			case GIVEN_CLAUSE: return new GivenClauseResolution();
+			case UNITS: return new GivenClauseResolution(true);
+			case PARALLEL: return new ParallelResolution();
+			case CDCL: return new CdclSolver();
+			default: return new AllPairsResolution();
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Collapsed extends PipelineInput {
+		@Param({ "ALL_PAIRS", "GIVEN_CLAUSE", "UNITS", "PARALLEL", "CDCL" })
+		public Strategy strategy;
+
+		public Budget budget;
+
+		@Setup(Level.Invocation) public void setup() {
+			prepare(5);
+			resolution.setStrategy(strategy.create());
+			budget = new Budget();
+			budget.setTimeLimit(TIME_LIMIT_MS);
+		}
+	}
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Unknowns {
+		public int unknown;
+
+		@Setup(Level.Iteration) public void reset() {
+			unknown = 0;
+		}
+	}
+
+	@Benchmark
+	public Outcome applyResolution(Collapsed input, Unknowns unknowns) {
+		Outcome outcome = input.resolution.applyResolution(input.budget);
+		if(outcome == Outcome.UNKNOWN) {
+			unknowns.unknown++;
+		}
+		return outcome;
+	}
+
+}
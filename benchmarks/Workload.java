@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.Random;
+
+// The families of formulas the benchmarks run on.  Each generates a
+// formula in the syntax LogicParser reads, scaled by size.
+public enum Workload {
+
+	// size atoms in round(4.26 * size) random 3-literal clauses, the ratio
+	// at which random 3-CNF is hardest
+	RANDOM_3CNF {
+		String generate(int size, Random random) {
+			StringBuilder formula = new StringBuilder();
+			int clauses = (int)Math.round(4.26 * size);
+			for(int i = 0; i < clauses; i++) {
+				if(i > 0) formula.append(" && ");
+				formula.append('(');
+				for(int j = 0; j < 3; j++) {
+					if(j > 0) formula.append(" || ");
+					if(random.nextBoolean()) formula.append('!');
+					formula.append(atom(random.nextInt(size)));
+				}
+				formula.append(')');
+			}
+			return formula.toString();
+		}
+	},
+
+	// size+1 pigeons in size holes, which is unsatisfiable
+	PIGEONHOLE {
+		String generate(int size, Random random) {
+			StringBuilder formula = new StringBuilder();
+			for(int pigeon = 0; pigeon <= size; pigeon++) {
+				if(pigeon > 0) formula.append(" && ");
+				formula.append('(');
+				for(int hole = 0; hole < size; hole++) {
+					if(hole > 0) formula.append(" || ");
+					formula.append(atom(pigeon * size + hole));
+				}
+				formula.append(')');
+			}
+			for(int hole = 0; hole < size; hole++) {
+				for(int p1 = 0; p1 <= size; p1++) {
+					for(int p2 = p1 + 1; p2 <= size; p2++) {
+						formula.append(" && (!").append(atom(p1 * size + hole))
+							.append(" || !").append(atom(p2 * size + hole)).append(')');
+					}
+				}
+			}
+			return formula.toString();
+		}
+	},
+
+	// A <=> (B <=> (C <=> ...)) over size atoms
+	BICONDITION_CHAIN {
+		String generate(int size, Random random) {
+			String formula = atom(size - 1);
+			for(int i = size - 2; i >= 0; i--) {
+				formula = atom(i) + " <=> (" + formula + ")";
+			}
+			return formula;
+		}
+	},
+
+	// !(A && !(B || !(C && ...))) nested size levels deep
+	NEGATION_NESTING {
+		String generate(int size, Random random) {
+			String formula = atom(size - 1);
+			for(int i = size - 2; i >= 0; i--) {
+				formula = "!(" + atom(i) + (i % 2 == 0 ? " && " : " || ") + formula + ")";
+			}
+			return formula;
+		}
+	};
+
+	abstract String generate(int size, Random random);
+
+	// Atom names may only contain letters: A..Z, then AA, AB, ...
+	static String atom(int i) {
+		String name = "";
+		do {
+			name = (char)('A' + i % 26) + name;
+			i = i / 26 - 1;
+		} while(i >= 0);
+		return name;
+	}
+
+}
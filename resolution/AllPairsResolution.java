@@ -0,0 +1,65 @@
+package resolution;
+
+// The original saturation loop: every pass compares all pairs of
+// clauses, and passes repeat until one adds no new resolvents or the
+// database's budget is exhausted.  It resolves with resolve(), so it
+// cannot record a proof.  Pairs are resolved into a Resolver's scratch
+// buffer, and only resolvents that are added get an array of their own.
+public class AllPairsResolution implements ResolutionStrategy
+{
+	public boolean findConflict(ClauseDatabase db)
+	{
+		if(db.getProof() != null) {
+			throw new IllegalStateException("All-pairs resolution cannot record a proof");
+		}
+		int[] clause1, clause2;
+		int length;
+		boolean updated = true;
+		ResolutionListener listener = db.getListener();
+		Resolver resolver = Resolver.forThread();
+		
+		// Continue iterating until no more resolvents are found
+		while(updated) {
+			updated = false;
+			// Compare all pairs of clauses to create new resolvents
+			for(int i = 0; i < db.size(); i++) {
+				if(db.isRetired(i)) {
+					continue;
+				}
+				clause1 = db.getClause(i);
+				if(clause1.length == 0) {
+					// An empty clause given as input
+					return true;
+				}
+				for(int j = i+1; j < db.size() && !db.isRetired(i); j++) {
+					if(db.isRetired(j)) {
+						continue;
+					}
+					if(db.isOverBudget()) {
+						return false;
+					}
+					clause2 = db.getClause(j);
+					if(listener != null) {
+						listener.pairTried();
+					}
+					// Generate a resolvent from two clauses
+					length = resolver.resolve(clause1, clause2);
+					if(length == Resolver.NONE) {
+						// Do nothing, clauses could not be resolved
+					}
+					else if(length > 0) { 
+						// Add new valid non-duplicate, non-subsumed resolvents
+						if(db.addResolvent(resolver.literals(), length) >= 0) {
+							updated = true; // Flag set as updated
+						}
+					}
+					else { 
+						// Conflict found!
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+}
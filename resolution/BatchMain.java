@@ -0,0 +1,280 @@
+package resolution;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import processing.data.XML;
+
+// Solves formulas without opening a Processing window.  Reads one
+// formula per line from the named file, or from standard input when no
+// file is given, runs the whole CNF pipeline and resolution on each, and
+// prints one tab separated line per formula: the line number, then
+// "true" when a conflict was found, "false" when none was, or "error"
+// and a message.  With --time the milliseconds spent on the formula
+// are added as a third column.  With --timeout each formula gets that
+// many milliseconds of resolution, and "unknown" is printed when it runs
+// out without finding a conflict.  Blank lines are skipped.  With --cache
+// the results of the last <size> distinct formulas are kept in a
+// ResultCache, and its hit and miss counts are printed to standard error
+// at the end.  With --stats the ResolutionCounters totalled over every
+// formula the pipeline ran on, which excludes those the cache answered
+// or converted, are printed to standard error at the end.  With --dimacs
+// the input is instead one clause set in DIMACS CNF, which is read
+// straight into a ClauseDatabase and solved, and a single line is
+// printed with the clause count in place of the line number.  With
+// --entails the input is one knowledge base instead, its axioms one per
+// line and the query on the last, which is checked by a KnowledgeBase
+// converting the axioms in parallel, and a single line is printed with
+// the axiom count in place of the line number.  Entailment is decided by
+// strict resolution, so the saturation strategies resolve strictly then,
+// given-clause is the default, and all-pairs is refused.  With --preprocess the
+// clauses are simplified by a Preprocessor before the strategy runs.
+//
+// Usage: BatchMain [--time] [--stats] [--preprocess] [--dimacs|--entails] [--timeout=<ms>] [--cache=<size>] [--strategy=all-pairs|given-clause|units|parallel|cdcl] [file]
+public class BatchMain
+{
+	public static void main(String[] args) throws IOException
+	{
+		boolean timing = false;
+		boolean dimacs = false;
+		boolean entails = false;
+		boolean preprocess = false;
+		ResolutionCounters counters = null;
+		String strategy = null;
+		int cacheSize = 0;
+		long timeout = 0;
+		String file = null;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--time")) {
+				timing = true;
+			}
+			else if(args[i].equals("--dimacs")) {
+				dimacs = true;
+			}
+			else if(args[i].equals("--preprocess")) {
+				preprocess = true;
+			}
+			else if(args[i].equals("--entails")) {
+				entails = true;
+			}
+			else if(args[i].equals("--stats")) {
+				counters = new ResolutionCounters();
+			}
+			else if(args[i].startsWith("--timeout=")) {
+				timeout = Long.parseLong(args[i].substring("--timeout=".length()));
+			}
+			else if(args[i].startsWith("--cache=")) {
+				cacheSize = Integer.parseInt(args[i].substring("--cache=".length()));
+			}
+			else if(args[i].startsWith("--strategy=")) {
+				strategy = args[i].substring("--strategy=".length());
+			}
+			else {
+				file = args[i];
+			}
+		}
+		if(strategy == null) {
+			strategy = entails ? "given-clause" : "all-pairs";
+		}
+		if(createStrategy(strategy) == null) {
+			System.err.println("Unknown strategy: " + strategy);
+			System.exit(2);
+		}
+		
+		if(dimacs || entails) {
+			ResolutionStrategy solver = createStrategy(strategy, preprocess, entails);
+			if(entails && !KnowledgeBase.isSound(solver)) {
+				System.err.println("Strategy cannot decide entailment: " + strategy);
+				System.exit(2);
+			}
+			solveProblem(file, entails, solver, timeout, timing, counters);
+			return;
+		}
+		
+		ResultCache cache = cacheSize > 0 ? new ResultCache(cacheSize) : null;
+		InputStream input = file == null ? System.in : new FileInputStream(file);
+		BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+		try {
+			String line;
+			int lineNumber = 0;
+			while((line = in.readLine()) != null) {
+				lineNumber++;
+				if(line.trim().isEmpty()) {
+					continue;
+				}
+				long start = System.nanoTime();
+				String result;
+				try {
+					ResolutionStrategy solver = createStrategy(strategy, preprocess);
+					Budget budget = null;
+					if(timeout > 0) {
+						budget = new Budget();
+						budget.setTimeLimit(timeout);
+					}
+					Outcome outcome = cache != null ? cache.solve(line, solver, budget) : solve(line, solver, budget, counters);
+					result = outcome == Outcome.UNKNOWN ? "unknown" : String.valueOf(outcome == Outcome.CONFLICT);
+				}
+				catch(RuntimeException e) {
+					result = "error\t" + e.getMessage();
+				}
+				out.print(lineNumber + "\t" + result);
+				if(timing) {
+					out.printf(Locale.ROOT, "\t%.3f", (System.nanoTime() - start) / 1e6);
+				}
+				out.println();
+			}
+		}
+		finally {
+			in.close();
+			out.flush();
+		}
+		if(cache != null) {
+			System.err.println("cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+		}
+		if(counters != null) {
+			System.err.println(counters);
+		}
+	}
+	
+	
+	// Converts one formula to CNF and runs resolution on it.  Returns
+	// true when resolution finds a conflict.
+	public static boolean solve(String formula, ResolutionStrategy strategy)
+	{
+		return solve(formula, strategy, null) == Outcome.CONFLICT;
+	}
+	
+	
+	// Like solve(), with resolution bounded by budget when it is not null.
+	public static Outcome solve(String formula, ResolutionStrategy strategy, Budget budget)
+	{
+		return solve(formula, strategy, budget, null);
+	}
+	
+	
+	// Like solve(), also reporting to listener when it is not null.
+	public static Outcome solve(String formula, ResolutionStrategy strategy, Budget budget, ResolutionListener listener)
+	{
+		XML tree = LogicParser.toXML(formula);
+		LogicPipeline pipeline = new LogicPipeline(tree);
+		pipeline.setStrategy(strategy);
+		pipeline.setListener(listener);
+		pipeline.convertToCnf();
+		return pipeline.applyResolution(budget);
+	}
+	
+	
+	// Runs resolution on a clause set that is already encoded, bounded by
+	// budget and reporting to listener when they are not null.
+	public static Outcome solve(ClauseDatabase db, ResolutionStrategy strategy, Budget budget, ResolutionListener listener)
+	{
+		db.setBudget(budget);
+		db.setListener(listener);
+		if(listener != null) {
+			listener.resolutionStarted(db.size());
+		}
+		boolean conflict = strategy.findConflict(db);
+		if(budget == null) {
+			return conflict ? Outcome.CONFLICT : Outcome.NO_CONFLICT;
+		}
+		return budget.outcome(conflict);
+	}
+	
+	
+	// The --dimacs and --entails modes: solves the one problem in file,
+	// or on standard input, and prints the result.
+	private static void solveProblem(String file, boolean entails, ResolutionStrategy strategy, long timeout, boolean timing, ResolutionCounters counters) throws IOException
+	{
+		long start = System.nanoTime();
+		ClauseDatabase db;
+		int size;
+		if(entails) {
+			XML logic = file == null ? LogicParser.toXML(readAll(System.in)) : LogicParser.toXML(Paths.get(file));
+			KnowledgeBase kb = new KnowledgeBase(logic);
+			db = kb.toClauses(ForkJoinPool.commonPool());
+			size = kb.getAxiomCount();
+		}
+		else {
+			db = file == null ? Dimacs.read(Channels.newChannel(System.in)) : Dimacs.read(Paths.get(file));
+			size = db.size();
+		}
+		Budget budget = null;
+		if(timeout > 0) {
+			budget = new Budget();
+			budget.setTimeLimit(timeout);
+		}
+		Outcome outcome = solve(db, strategy, budget, counters);
+		String result = outcome == Outcome.UNKNOWN ? "unknown" : String.valueOf(outcome == Outcome.CONFLICT);
+		System.out.print(size + "\t" + result);
+		if(timing) {
+			System.out.printf(Locale.ROOT, "\t%.3f", (System.nanoTime() - start) / 1e6);
+		}
+		System.out.println();
+		if(counters != null) {
+			System.err.println(counters);
+		}
+	}
+	
+	
+	private static String readAll(InputStream input) throws IOException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		StringBuilder text = new StringBuilder();
+		String line;
+		while((line = in.readLine()) != null) {
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+	
+	
+	// Returns a new strategy for its command line name, wrapped in a
+	// Preprocessor when preprocess is set.
+	private static ResolutionStrategy createStrategy(String name, boolean preprocess)
+	{
+		return createStrategy(name, preprocess, false);
+	}
+
+
+	// Like createStrategy(name, preprocess), with the given-clause
+	// strategies resolving strictly when strict is set.  All-pairs has no
+	// strict form and is returned as it is.
+	private static ResolutionStrategy createStrategy(String name, boolean preprocess, boolean strict)
+	{
+		ResolutionStrategy strategy = strict ? createStrictStrategy(name) : createStrategy(name);
+		return preprocess ? new Preprocessor(strategy) : strategy;
+	}
+
+
+	private static ResolutionStrategy createStrictStrategy(String name)
+	{
+		if(name.equals("given-clause")) return new GivenClauseResolution(false, true);
+		if(name.equals("units")) return new GivenClauseResolution(true, true);
+		if(name.equals("parallel")) return new ParallelResolution(false, true);
+		return createStrategy(name);
+	}
+	
+	
+	// Returns a new strategy for its command line name, or null.
+	public static ResolutionStrategy createStrategy(String name)
+	{
+		if(name.equals("all-pairs")) return new AllPairsResolution();
+		if(name.equals("given-clause")) return new GivenClauseResolution();
+		if(name.equals("units")) return new GivenClauseResolution(true);
+		if(name.equals("parallel")) return new ParallelResolution();
+		if(name.equals("cdcl")) return new CdclSolver();
+		return null;
+	}
+}
@@ -0,0 +1,138 @@
+package resolution;
+
+// Limits on one resolution run.  A budget is attached to the database
+// with ClauseDatabase.setBudget(), which starts its clock, and the
+// strategies check it cooperatively: the saturation loops and the CDCL
+// search ask isExhausted() as they go and stop early, returning no
+// conflict, once it says so.  Every limit is off until it is set.
+//
+//  - the time limit counts wall-clock milliseconds from setBudget();
+//  - the resolvent limit counts resolvents stored in the database, and
+//    the run stops when one more would be needed;
+//  - the clause length limit drops longer resolvents, and the run goes on
+//    without them;
+//  - the memory limit compares the heap in use by the whole JVM, not just
+//    by this run, with the number of bytes given.
+//
+// CdclSolver does not add resolvents to the database, so only the time
+// and memory limits and cancellation apply to it.
+//
+// cancel() may be called from any other thread.  All the other methods
+// belong to the thread running resolution.  The clock and the memory are
+// only read on every CHECK_INTERVAL-th call of isExhausted(), so the
+// checks are cheap enough to make once per pair of clauses.
+public class Budget
+{
+	private static final int CHECK_INTERVAL = 256;
+	private static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private boolean timed;		// a time limit has been set
+	private long timeLimit;		// nanoseconds
+	private int maxResolvents;
+	private int maxClauseLength;
+	private long maxMemory;		// bytes
+	private volatile boolean cancelled;
+	private long started;		// System.nanoTime() value
+	private int checks;
+	private int resolvents;
+	private int dropped;		// resolvents over the clause length limit
+	private boolean exhausted;	// some limit has been reached
+
+	public Budget()
+	{
+		timed = false;
+		maxResolvents = UNLIMITED;
+		maxClauseLength = UNLIMITED;
+		maxMemory = Long.MAX_VALUE;
+		cancelled = false;
+	}
+
+
+	public void setMaxResolvents(int count) { maxResolvents = count; }
+	public void setMaxClauseLength(int length) { maxClauseLength = length; }
+	public void setMaxMemory(long bytes) { maxMemory = bytes; }
+
+
+	// Only differences between System.nanoTime() values mean anything,
+	// so the limit is kept as a duration rather than a deadline.
+	public void setTimeLimit(long milliseconds)
+	{
+		timed = true;
+		timeLimit = Math.min(milliseconds, Long.MAX_VALUE / 1000000) * 1000000;
+	}
+
+
+	// Asks the run to stop at its next check.  Safe to call from any thread.
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+
+	public boolean isCancelled() { return cancelled; }
+	public int getResolventCount() { return resolvents; }
+	public int getDroppedCount() { return dropped; }
+
+
+	// Restarts the clock and the counters; the limits are kept.
+	void start()
+	{
+		started = System.nanoTime();
+		checks = 0;
+		resolvents = 0;
+		dropped = 0;
+		exhausted = false;
+	}
+
+
+	// Returns true once the run should stop: it was cancelled, or the
+	// time, memory or resolvent limit has been reached.  A run that never
+	// had to stop is decided even if cancel() came too late.
+	boolean isExhausted()
+	{
+		if(cancelled) {
+			exhausted = true;
+		}
+		if(exhausted) {
+			return true;
+		}
+		if(checks++ % CHECK_INTERVAL == 0) {
+			Runtime runtime = Runtime.getRuntime();
+			if(timed && System.nanoTime() - started >= timeLimit) {
+				exhausted = true;
+			}
+			else if(maxMemory != Long.MAX_VALUE && runtime.totalMemory() - runtime.freeMemory() > maxMemory) {
+				exhausted = true;
+			}
+		}
+		return exhausted;
+	}
+
+
+	// Counts a resolvent of length literals that is about to be stored.
+	// Returns false when it must be dropped instead: it is too long, or
+	// the resolvent limit has been reached, which also exhausts the budget.
+	boolean admits(int length)
+	{
+		if(length > maxClauseLength) {
+			dropped++;
+			return false;
+		}
+		if(resolvents >= maxResolvents) {
+			exhausted = true;
+			return false;
+		}
+		resolvents++;
+		return true;
+	}
+
+
+	// The outcome of a run that returned conflict under this budget
+	Outcome outcome(boolean conflict)
+	{
+		if(conflict) {
+			return Outcome.CONFLICT;
+		}
+		return exhausted || dropped > 0 ? Outcome.UNKNOWN : Outcome.NO_CONFLICT;
+	}
+}
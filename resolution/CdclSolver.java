@@ -0,0 +1,570 @@
+package resolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// A conflict-driven clause-learning SAT solver that answers the same
+// question as saturation: does the clause set contain a conflict, i.e.
+// is it unsatisfiable?  It searches for a satisfying assignment instead
+// of deriving every resolvent.  Unit propagation uses two watched
+// literals per clause, branching follows VSIDS variable activities with
+// saved phases, every conflict is analysed to a minimized first-UIP
+// learned clause, search restarts on a Luby schedule, and the least active
+// learned clauses are deleted as the database grows.
+//
+// Literals are stored as dense indices (see ClauseDatabase.index): the
+// variable is index >> 1 and index ^ 1 is the inverse literal.  Learned
+// clauses are not added to the ClauseDatabase.
+//
+// The database's budget is checked before every decision, and the search
+// gives up without a conflict once it is exhausted.  Learned clauses are
+// not recorded, so a proof cannot be.
+public class CdclSolver implements ResolutionStrategy
+{
+	private static final int NO_REASON = -1;
+	private static final int RESTART_BASE = 100;	// conflicts per Luby unit
+	private static final double VAR_DECAY = 0.95;
+	private static final double CLAUSE_DECAY = 0.999;
+
+	private int numVars;
+	private ArrayList<int[]> clauses;	// null once a learned clause is deleted
+	private boolean[] learnt;
+	private double[] clauseActivity;
+	private IntList learnts;
+	private IntList[] watches;	// clause refs by watched literal index
+	private byte[] values;		// by literal index: 1 true, -1 false, 0 unassigned
+	private int[] level;
+	private int[] reason;
+	private int[] trail;
+	private int trailSize;
+	private int qhead;
+	private IntList trailLimits;	// trail size at the start of each decision level
+	private double[] activity;
+	private double varIncrement;
+	private double clauseIncrement;
+	private boolean[] phase;	// last value of each variable, reused when branching
+	private boolean[] seen;
+	private int[] heap;		// variables ordered by activity
+	private int[] heapIndex;	// position of each variable in heap, -1 when absent
+	private int heapSize;
+	private double maxLearnts;
+	private long conflicts;
+	private ClauseDatabase db;
+
+
+	public boolean findConflict(ClauseDatabase db)
+	{
+		if(db.getProof() != null) {
+			throw new IllegalStateException("The CDCL solver cannot record a proof");
+		}
+		this.db = db;
+		init(db.getAtomCount());
+		for(int i = 0; i < db.size(); i++) {
+			if(!db.isRetired(i) && !addInputClause(db.getClause(i))) {
+				return true;
+			}
+		}
+		maxLearnts = Math.max(clauses.size() / 3.0, 1000);
+		return !solve();
+	}
+
+
+	// Returns the number of conflicts analysed by the last run.
+	public long getConflictCount()
+	{
+		return conflicts;
+	}
+
+
+	private void init(int vars)
+	{
+		numVars = vars;
+		clauses = new ArrayList<int[]>();
+		learnt = new boolean[16];
+		clauseActivity = new double[16];
+		learnts = new IntList();
+		watches = new IntList[2 * vars];
+		for(int i = 0; i < watches.length; i++) {
+			watches[i] = new IntList();
+		}
+		values = new byte[2 * vars];
+		level = new int[vars];
+		reason = new int[vars];
+		trail = new int[vars];
+		trailSize = 0;
+		qhead = 0;
+		trailLimits = new IntList();
+		activity = new double[vars];
+		varIncrement = 1;
+		clauseIncrement = 1;
+		phase = new boolean[vars];
+		seen = new boolean[vars];
+		heap = new int[vars];
+		heapIndex = new int[vars];
+		heapSize = 0;
+		for(int v = 0; v < vars; v++) {
+			heapIndex[v] = -1;
+			heapInsert(v);
+		}
+		conflicts = 0;
+	}
+
+
+	// Adds a clause of the input set.  Returns false when it makes the
+	// set unsatisfiable at the root level.
+	private boolean addInputClause(int[] literals)
+	{
+		if(ClauseDatabase.isTautology(literals)) {
+			return true;
+		}
+		int[] clause = new int[literals.length];
+		for(int i = 0; i < clause.length; i++) {
+			clause[i] = ClauseDatabase.index(literals[i]);
+		}
+		if(clause.length == 0) {
+			return false;
+		}
+		if(clause.length == 1) {
+			if(value(clause[0]) < 0) {
+				return false;
+			}
+			if(value(clause[0]) == 0) {
+				assign(clause[0], NO_REASON);
+			}
+			return true;
+		}
+		attach(clause, false);
+		return true;
+	}
+
+
+	// Runs the search.  Returns true when a satisfying assignment exists,
+	// and also when the budget ran out before one was found.
+	private boolean solve()
+	{
+		if(propagate() != NO_REASON) {
+			return false;
+		}
+		for(int restart = 0; ; restart++) {
+			Boolean result = search(RESTART_BASE * luby(restart));
+			if(result != null) {
+				return result;
+			}
+			if(db.isOverBudget()) {
+				return true; // Gave up; the budget tells the caller so
+			}
+			maxLearnts *= 1.1;
+		}
+	}
+
+
+	// Searches until conflictLimit conflicts have been analysed or the
+	// budget is exhausted.  Returns null when either happens without an
+	// answer.
+	private Boolean search(long conflictLimit)
+	{
+		long conflictCount = 0;
+		IntList learntClause = new IntList();
+		while(true) {
+			int conflict = propagate();
+			if(conflict != NO_REASON) {
+				conflicts++;
+				conflictCount++;
+				if(decisionLevel() == 0) {
+					return Boolean.FALSE;
+				}
+				int backtrackLevel = analyze(conflict, learntClause);
+				cancelUntil(backtrackLevel);
+				if(learntClause.size() == 1) {
+					assign(learntClause.get(0), NO_REASON);
+				}
+				else {
+					int ref = attach(learntClause.toArray(), true);
+					bumpClause(ref);
+					assign(learntClause.get(0), ref);
+				}
+				varIncrement /= VAR_DECAY;
+				clauseIncrement /= CLAUSE_DECAY;
+			}
+			else {
+				if(conflictCount >= conflictLimit || db.isOverBudget()) {
+					cancelUntil(0);
+					return null;
+				}
+				if(learnts.size() - trailSize >= maxLearnts) {
+					reduceLearnts();
+				}
+				int next = pickBranchLiteral();
+				if(next == -1) {
+					return Boolean.TRUE; // Every variable assigned without conflict
+				}
+				trailLimits.add(trailSize);
+				assign(next, NO_REASON);
+			}
+		}
+	}
+
+
+	// Propagates every assignment on the trail that has not been
+	// propagated yet.  Returns the ref of a conflicting clause, or
+	// NO_REASON when propagation finished without a conflict.
+	private int propagate()
+	{
+		while(qhead < trailSize) {
+			int falseLiteral = trail[qhead++] ^ 1;
+			IntList list = watches[falseLiteral];
+			int kept = 0;
+			int n = list.size();
+			for(int i = 0; i < n; i++) {
+				int ref = list.get(i);
+				int[] clause = clauses.get(ref);
+				if(clause == null) {
+					continue; // Deleted learned clause, drop the watch
+				}
+				// Keep the false literal in position 1
+				if(clause[0] == falseLiteral) {
+					clause[0] = clause[1];
+					clause[1] = falseLiteral;
+				}
+				if(value(clause[0]) > 0) {
+					list.set(kept++, ref);
+					continue;
+				}
+				// Look for a new literal to watch
+				boolean moved = false;
+				for(int k = 2; k < clause.length; k++) {
+					if(value(clause[k]) >= 0) {
+						clause[1] = clause[k];
+						clause[k] = falseLiteral;
+						watches[clause[1]].add(ref);
+						moved = true;
+						break;
+					}
+				}
+				if(moved) {
+					continue;
+				}
+				list.set(kept++, ref);
+				if(value(clause[0]) < 0) {
+					// Conflict: keep the remaining watches and stop
+					for(i++; i < n; i++) {
+						list.set(kept++, list.get(i));
+					}
+					list.shrink(kept);
+					qhead = trailSize;
+					return ref;
+				}
+				assign(clause[0], ref);
+			}
+			list.shrink(kept);
+		}
+		return NO_REASON;
+	}
+
+
+	// Derives the first-UIP clause of a conflict into learntClause, with
+	// the asserting literal first and a literal of the backtrack level
+	// second.  Returns the level to backtrack to.
+	private int analyze(int conflict, IntList learntClause)
+	{
+		learntClause.clear();
+		learntClause.add(-1); // Room for the asserting literal
+		int pathCount = 0;
+		int literal = -1;
+		int index = trailSize - 1;
+		do {
+			int[] clause = clauses.get(conflict);
+			if(learnt[conflict]) {
+				bumpClause(conflict);
+			}
+			for(int j = (literal == -1) ? 0 : 1; j < clause.length; j++) {
+				int q = clause[j];
+				int var = q >> 1;
+				if(!seen[var] && level[var] > 0) {
+					seen[var] = true;
+					bumpVariable(var);
+					if(level[var] >= decisionLevel()) {
+						pathCount++;
+					}
+					else {
+						learntClause.add(q);
+					}
+				}
+			}
+			// Walk back to the next literal of the conflict on the trail
+			while(!seen[trail[index] >> 1]) {
+				index--;
+			}
+			literal = trail[index--];
+			conflict = reason[literal >> 1];
+			seen[literal >> 1] = false;
+			pathCount--;
+		} while(pathCount > 0);
+		learntClause.set(0, literal ^ 1);
+
+		// Drop literals implied by the rest of the clause: those whose
+		// reason holds only literals already in it or fixed at level 0
+		int[] analyzed = learntClause.toArray();
+		int kept = 1;
+		for(int i = 1; i < analyzed.length; i++) {
+			if(!isRedundant(analyzed[i])) {
+				learntClause.set(kept++, analyzed[i]);
+			}
+		}
+		learntClause.shrink(kept);
+		for(int i = 1; i < analyzed.length; i++) {
+			seen[analyzed[i] >> 1] = false;
+		}
+
+		int backtrackLevel = 0;
+		for(int i = 1; i < learntClause.size(); i++) {
+			int var = learntClause.get(i) >> 1;
+			if(level[var] > backtrackLevel) {
+				backtrackLevel = level[var];
+				// Watch a literal of the backtrack level
+				int swap = learntClause.get(1);
+				learntClause.set(1, learntClause.get(i));
+				learntClause.set(i, swap);
+			}
+		}
+		return backtrackLevel;
+	}
+
+
+	private boolean isRedundant(int literal)
+	{
+		int from = reason[literal >> 1];
+		if(from == NO_REASON) {
+			return false;
+		}
+		int[] clause = clauses.get(from);
+		for(int j = 1; j < clause.length; j++) {
+			int var = clause[j] >> 1;
+			if(!seen[var] && level[var] > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private int attach(int[] clause, boolean isLearnt)
+	{
+		int ref = clauses.size();
+		clauses.add(clause);
+		if(ref == learnt.length) {
+			learnt = Arrays.copyOf(learnt, ref * 2);
+			clauseActivity = Arrays.copyOf(clauseActivity, ref * 2);
+		}
+		learnt[ref] = isLearnt;
+		if(isLearnt) {
+			learnts.add(ref);
+		}
+		watches[clause[0]].add(ref);
+		watches[clause[1]].add(ref);
+		return ref;
+	}
+
+
+	// Deletes the less active half of the learned clauses, keeping binary
+	// clauses and clauses that are the reason for a current assignment.
+	private void reduceLearnts()
+	{
+		int[] order = learnts.toArray();
+		sortByActivity(order);
+		learnts.clear();
+		for(int i = 0; i < order.length; i++) {
+			int ref = order[i];
+			int[] clause = clauses.get(ref);
+			boolean locked = reason[clause[0] >> 1] == ref && value(clause[0]) > 0;
+			if(i < order.length / 2 && clause.length > 2 && !locked) {
+				clauses.set(ref, null);
+			}
+			else {
+				learnts.add(ref);
+			}
+		}
+	}
+
+
+	// Sorts clause refs by increasing activity with a bottom-up merge
+	// sort, which keeps refs of equal activity in their order and needs
+	// no boxing.
+	private void sortByActivity(int[] refs)
+	{
+		int[] from = refs;
+		int[] to = new int[refs.length];
+		for(int width = 1; width < refs.length; width *= 2) {
+			for(int low = 0; low < refs.length; low += 2 * width) {
+				int middle = Math.min(low + width, refs.length);
+				int high = Math.min(low + 2 * width, refs.length);
+				int i = low;
+				int j = middle;
+				for(int k = low; k < high; k++) {
+					if(j == high || (i < middle && Double.compare(clauseActivity[from[i]], clauseActivity[from[j]]) <= 0)) {
+						to[k] = from[i++];
+					}
+					else {
+						to[k] = from[j++];
+					}
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		if(from != refs) {
+			System.arraycopy(from, 0, refs, 0, refs.length);
+		}
+	}
+
+
+	private int pickBranchLiteral()
+	{
+		while(heapSize > 0) {
+			int var = heapRemoveMax();
+			if(values[2 * var] == 0) {
+				return 2 * var + (phase[var] ? 0 : 1);
+			}
+		}
+		return -1;
+	}
+
+
+	private void assign(int literal, int from)
+	{
+		int var = literal >> 1;
+		values[literal] = 1;
+		values[literal ^ 1] = -1;
+		level[var] = decisionLevel();
+		reason[var] = from;
+		trail[trailSize++] = literal;
+	}
+
+
+	private void cancelUntil(int targetLevel)
+	{
+		if(decisionLevel() <= targetLevel) {
+			return;
+		}
+		int limit = trailLimits.get(targetLevel);
+		for(int i = trailSize - 1; i >= limit; i--) {
+			int literal = trail[i];
+			int var = literal >> 1;
+			phase[var] = (literal & 1) == 0;
+			values[literal] = 0;
+			values[literal ^ 1] = 0;
+			if(heapIndex[var] < 0) {
+				heapInsert(var);
+			}
+		}
+		trailSize = limit;
+		qhead = limit;
+		trailLimits.shrink(targetLevel);
+	}
+
+
+	private int value(int literal) { return values[literal]; }
+	private int decisionLevel() { return trailLimits.size(); }
+
+
+	private void bumpVariable(int var)
+	{
+		activity[var] += varIncrement;
+		if(activity[var] > 1e100) {
+			for(int v = 0; v < numVars; v++) {
+				activity[v] *= 1e-100;
+			}
+			varIncrement *= 1e-100;
+		}
+		if(heapIndex[var] >= 0) {
+			heapUp(heapIndex[var]);
+		}
+	}
+
+
+	private void bumpClause(int ref)
+	{
+		clauseActivity[ref] += clauseIncrement;
+		if(clauseActivity[ref] > 1e20) {
+			for(int i = 0; i < learnts.size(); i++) {
+				clauseActivity[learnts.get(i)] *= 1e-20;
+			}
+			clauseIncrement *= 1e-20;
+		}
+	}
+
+
+	// The Luby sequence 1 1 2 1 1 2 4 1 1 2 ... used to space restarts.
+	private static long luby(int i)
+	{
+		int size = 1;
+		int sequence = 0;
+		while(size < i + 1) {
+			sequence++;
+			size = 2 * size + 1;
+		}
+		while(size - 1 != i) {
+			size = (size - 1) >> 1;
+			sequence--;
+			i = i % size;
+		}
+		return 1L << sequence;
+	}
+
+
+	// Binary max-heap of variables keyed by activity
+	private void heapInsert(int var)
+	{
+		heap[heapSize] = var;
+		heapIndex[var] = heapSize;
+		heapUp(heapSize++);
+	}
+
+
+	private int heapRemoveMax()
+	{
+		int top = heap[0];
+		heapIndex[top] = -1;
+		heapSize--;
+		if(heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapIndex[heap[0]] = 0;
+			heapDown(0);
+		}
+		return top;
+	}
+
+
+	private void heapUp(int i)
+	{
+		int var = heap[i];
+		while(i > 0 && activity[heap[(i - 1) >> 1]] < activity[var]) {
+			heap[i] = heap[(i - 1) >> 1];
+			heapIndex[heap[i]] = i;
+			i = (i - 1) >> 1;
+		}
+		heap[i] = var;
+		heapIndex[var] = i;
+	}
+
+
+	private void heapDown(int i)
+	{
+		int var = heap[i];
+		while(2 * i + 1 < heapSize) {
+			int child = 2 * i + 1;
+			if(child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+				child++;
+			}
+			if(activity[heap[child]] <= activity[var]) {
+				break;
+			}
+			heap[i] = heap[child];
+			heapIndex[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = var;
+		heapIndex[var] = i;
+	}
+}
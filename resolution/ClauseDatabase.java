@@ -0,0 +1,596 @@
+package resolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import processing.data.XML;
+
+// A compact store for a set of clauses, used by resolution in place of
+// the XML tree.  Atoms are interned to ints, literals are signed ints
+// (+(atom+1) for the atom itself and -(atom+1) for its negation), and
+// every clause is a sorted int[] that holds no duplicate literals.
+// Clauses are hashed into an open-addressing index for duplicate checks,
+// and each carries a 64-bit literal signature for subsumption tests.
+// An occurrence index lists, for every literal, the clauses holding it.
+// Clause ids never change: a clause that is subsumed by a newer one is
+// only marked as retired.  Retirements are kept on a trail, so the
+// database can be rolled back to an earlier size with truncate().  A
+// Budget may be attached to bound the resolvents that are added, a
+// ResolutionListener to hear about them and a ProofRecorder to record
+// how they were derived.
+public class ClauseDatabase
+{
+	private ArrayList<String> atomNames;
+	private HashMap<String,Integer> atomIds;
+	private ArrayList<int[]> clauses;
+	private long[] signatures;	// one bit per literal, folded to 64 bits
+	private boolean[] retired;	// clauses subsumed by a later resolvent
+	private int[] hashTable;	// clause id + 1 per slot, 0 when empty
+	private IntList[] occurrences;	// clause ids by literal index
+	private IntList retirements;	// retired clause ids, in order
+	private int liveCount;
+	private Budget budget;		// null when resolution is not bounded
+	private ResolutionListener listener;	// null when nothing listens
+	private ProofRecorder proof;	// null when no proof is recorded
+
+	public ClauseDatabase()
+	{
+		atomNames = new ArrayList<String>();
+		atomIds = new HashMap<String,Integer>();
+		clauses = new ArrayList<int[]>();
+		signatures = new long[16];
+		retired = new boolean[16];
+		hashTable = new int[32];
+		occurrences = new IntList[0];
+		retirements = new IntList();
+		liveCount = 0;
+		budget = null;
+		listener = null;
+		proof = null;
+	}
+
+
+	// Builds a database from a collapsed set: an and-node whose children
+	// are or-nodes of literals.  Clause ids follow the order of the
+	// children, so clause i of the database is child i of the set.
+	public static ClauseDatabase fromXML(XML set)
+	{
+		ClauseDatabase db = new ClauseDatabase();
+		XML[] children = set.getChildren();
+		for(int i = 0; i < children.length; i++) {
+			db.addClause(db.clauseFromXML(children[i]));
+		}
+		return db;
+	}
+
+
+	// Returns the id of the atom with this name, interning it first
+	// if it has not been seen before.
+	public int internAtom(String name)
+	{
+		Integer id = atomIds.get(name);
+		if(id == null) {
+			id = atomNames.size();
+			atomNames.add(name);
+			atomIds.put(name, id);
+			if(2*atomNames.size() > occurrences.length) {
+				occurrences = Arrays.copyOf(occurrences, Math.max(16, 2*occurrences.length));
+			}
+			occurrences[2*id] = new IntList();
+			occurrences[2*id+1] = new IntList();
+		}
+		return id;
+	}
+
+
+	public boolean hasAtom(String name) { return atomIds.containsKey(name); }
+	public String getAtomName(int atom) { return atomNames.get(atom); }
+	public int getAtomCount() { return atomNames.size(); }
+
+
+	// Literal encoding helpers
+	public static int literal(int atom, boolean negated) { return negated ? -(atom+1) : atom+1; }
+	public static int atomOf(int literal) { return (literal < 0 ? -literal : literal) - 1; }
+	public static boolean isNegated(int literal) { return literal < 0; }
+
+
+	// Adds a clause to the database and returns its id.  The literals
+	// are copied, sorted and stripped of duplicates first.
+	public int addClause(int[] literals)
+	{
+		return store(normalize(literals));
+	}
+
+
+	// Adds a normalized resolvent unless it duplicates or is subsumed by
+	// a live clause.  Live clauses that the resolvent subsumes are
+	// retired.  Returns the new id, or -1 when the resolvent was dropped,
+	// which the budget may also ask for.
+	public int addResolvent(int[] resolvent)
+	{
+		return admits(resolvent, resolvent.length) ? storeResolvent(resolvent) : -1;
+	}
+
+
+	// Like addResolvent(), for a resolvent held in the first length slots
+	// of a scratch buffer.  It is copied only when it is added.
+	public int addResolvent(int[] literals, int length)
+	{
+		return admits(literals, length) ? storeResolvent(Arrays.copyOf(literals, length)) : -1;
+	}
+
+
+	// Returns true when a resolvent is neither a duplicate nor subsumed,
+	// and the budget lets it in
+	private boolean admits(int[] literals, int length)
+	{
+		if(containsClause(literals, length)) {
+			if(listener != null) {
+				listener.duplicateRejected();
+			}
+			return false;
+		}
+		if(isSubsumed(literals, length)) {
+			if(listener != null) {
+				listener.subsumedRejected();
+			}
+			return false;
+		}
+		return budget == null || budget.admits(length);
+	}
+
+
+	private int storeResolvent(int[] resolvent)
+	{
+		int id = store(resolvent);
+		retireSubsumedBy(id);
+		if(listener != null) {
+			listener.resolventAdded(liveCount);
+		}
+		return id;
+	}
+
+
+	// Bounds the resolution run on this database by budget, or removes
+	// the bound when it is null, and starts the budget's clock.
+	public void setBudget(Budget budget)
+	{
+		this.budget = budget;
+		if(budget != null) {
+			budget.start();
+		}
+	}
+
+
+	public Budget getBudget()
+	{
+		return budget;
+	}
+
+
+	public void setListener(ResolutionListener listener) { this.listener = listener; }
+	public ResolutionListener getListener() { return listener; }
+	public void setProof(ProofRecorder proof) { this.proof = proof; }
+	public ProofRecorder getProof() { return proof; }
+
+
+	// Returns true when a strategy should stop because the budget is
+	// exhausted.  Always false without a budget.
+	public boolean isOverBudget()
+	{
+		return budget != null && budget.isExhausted();
+	}
+
+
+	// Marks a live clause as retired, for a caller that has derived a
+	// clause that makes it redundant.
+	public void retire(int id)
+	{
+		if(!retired[id]) {
+			retired[id] = true;
+			retirements.add(id);
+			liveCount--;
+		}
+	}
+
+
+	// The number of retirements so far, to pass to truncate() later.
+	public int getRetirementCount()
+	{
+		return retirements.size();
+	}
+
+
+	// Rolls the database back: every clause with an id of size or more
+	// is removed, and every clause retired after the first retirementCount
+	// retirements is live again.  The atoms are kept.
+	public void truncate(int size, int retirementCount)
+	{
+		for(int i = retirements.size() - 1; i >= retirementCount; i--) {
+			int id = retirements.get(i);
+			retired[id] = false;
+			liveCount++;
+		}
+		retirements.shrink(retirementCount);
+		for(int id = clauses.size() - 1; id >= size; id--) {
+			int[] clause = clauses.get(id);
+			// The newest clause is last in each of its occurrence lists
+			for(int i = 0; i < clause.length; i++) {
+				IntList list = occurrences[index(clause[i])];
+				list.shrink(list.size() - 1);
+			}
+			removeHash(id);
+			clauses.remove(id);
+			if(!retired[id]) {
+				liveCount--;
+			}
+			retired[id] = false;
+		}
+	}
+
+
+	public int[] getClause(int id) { return clauses.get(id); }
+	public boolean isRetired(int id) { return retired[id]; }
+	public int size() { return clauses.size(); }
+	public int getLiveCount() { return liveCount; }
+
+
+	// The occurrence index: the ids of every clause, live or retired,
+	// that contains literal, in the order the clauses were added.
+	public int getOccurrenceCount(int literal) { return occurrences[index(literal)].size(); }
+	public int getOccurrence(int literal, int i) { return occurrences[index(literal)].get(i); }
+
+
+	// Returns true when the database already holds a clause with
+	// exactly the same literals.  The clause must be normalized.
+	public boolean containsClause(int[] clause)
+	{
+		return containsClause(clause, clause.length);
+	}
+
+
+	// Like containsClause(), for the first length literals of clause
+	public boolean containsClause(int[] clause, int length)
+	{
+		int mask = hashTable.length - 1;
+		for(int slot = hash(clause, length) & mask; hashTable[slot] != 0; slot = (slot + 1) & mask) {
+			if(equals(clauses.get(hashTable[slot] - 1), clause, length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// Returns true when some live clause contains only literals that
+	// also appear in clause.  Such a clause shares at least one literal
+	// with clause, so only the occurrence lists of its literals are read.
+	public boolean isSubsumed(int[] clause)
+	{
+		return isSubsumed(clause, clause.length);
+	}
+
+
+	// Like isSubsumed(), for the first length literals of clause
+	public boolean isSubsumed(int[] clause, int length)
+	{
+		long signature = signature(clause, length);
+		for(int i = 0; i < length; i++) {
+			IntList list = occurrences[index(clause[i])];
+			for(int j = 0; j < list.size(); j++) {
+				int id = list.get(j);
+				if(!retired[id] && (signatures[id] & ~signature) == 0 && subsumes(clauses.get(id), clause, length)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	// Retires every other live clause that clause id subsumes.  Those
+	// clauses hold all of its literals, so the shortest occurrence list
+	// among them holds every candidate.
+	private void retireSubsumedBy(int id)
+	{
+		int[] clause = clauses.get(id);
+		long signature = signatures[id];
+		IntList shortest = occurrences[index(clause[0])];
+		for(int i = 1; i < clause.length; i++) {
+			if(occurrences[index(clause[i])].size() < shortest.size()) {
+				shortest = occurrences[index(clause[i])];
+			}
+		}
+		for(int j = 0; j < shortest.size(); j++) {
+			int other = shortest.get(j);
+			if(other != id && !retired[other] && (signature & ~signatures[other]) == 0 && subsumes(clause, clauses.get(other))) {
+				retire(other);
+			}
+		}
+	}
+
+
+	// Returns true when every literal of the sorted clause c1 appears
+	// in the sorted clause c2.
+	public static boolean subsumes(int[] c1, int[] c2)
+	{
+		return subsumes(c1, c2, c2.length);
+	}
+
+
+	// Like subsumes(), for the first length literals of c2
+	private static boolean subsumes(int[] c1, int[] c2, int length)
+	{
+		if(c1.length > length) {
+			return false;
+		}
+		int j = 0;
+		for(int i = 0; i < c1.length; i++) {
+			while(j < length && c2[j] < c1[i]) {
+				j++;
+			}
+			if(j == length || c2[j] != c1[i]) {
+				return false;
+			}
+			j++;
+		}
+		return true;
+	}
+
+
+	// Appends a normalized clause and adds it to the hash index.
+	private int store(int[] clause)
+	{
+		int id = clauses.size();
+		clauses.add(clause);
+		if(id == signatures.length) {
+			signatures = Arrays.copyOf(signatures, id * 2);
+			retired = Arrays.copyOf(retired, id * 2);
+		}
+		signatures[id] = signature(clause);
+		for(int i = 0; i < clause.length; i++) {
+			occurrences[index(clause[i])].add(id);
+		}
+		liveCount++;
+		if(clauses.size() * 2 > hashTable.length) {
+			hashTable = new int[hashTable.length * 2];
+			for(int i = 0; i < clauses.size(); i++) {
+				insertHash(i);
+			}
+		}
+		else {
+			insertHash(id);
+		}
+		return id;
+	}
+
+
+	private void insertHash(int id)
+	{
+		int mask = hashTable.length - 1;
+		int slot = hash(clauses.get(id)) & mask;
+		while(hashTable[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		hashTable[slot] = id + 1;
+	}
+
+
+	// Deletes clause id from the hash index, shifting back any later
+	// entry of its probe run that would otherwise become unreachable.
+	private void removeHash(int id)
+	{
+		int mask = hashTable.length - 1;
+		int slot = hash(clauses.get(id)) & mask;
+		while(hashTable[slot] != id + 1) {
+			slot = (slot + 1) & mask;
+		}
+		int next = (slot + 1) & mask;
+		while(hashTable[next] != 0) {
+			int home = hash(clauses.get(hashTable[next] - 1)) & mask;
+			// Move the entry into the hole unless its home lies
+			// cyclically within (slot, next]
+			if(((next - home) & mask) >= ((next - slot) & mask)) {
+				hashTable[slot] = hashTable[next];
+				slot = next;
+			}
+			next = (next + 1) & mask;
+		}
+		hashTable[slot] = 0;
+	}
+
+
+	private static int hash(int[] clause)
+	{
+		return hash(clause, clause.length);
+	}
+
+
+	// Arrays.hashCode() of the first length literals of clause, spread
+	private static int hash(int[] clause, int length)
+	{
+		int h = 1;
+		for(int i = 0; i < length; i++) {
+			h = 31 * h + clause[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+
+	// Returns true when stored holds exactly the first length literals
+	// of clause
+	private static boolean equals(int[] stored, int[] clause, int length)
+	{
+		if(stored.length != length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(stored[i] != clause[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static long signature(int[] clause)
+	{
+		return signature(clause, clause.length);
+	}
+
+
+	private static long signature(int[] clause, int length)
+	{
+		long signature = 0;
+		for(int i = 0; i < length; i++) {
+			signature |= 1L << (index(clause[i]) & 63);
+		}
+		return signature;
+	}
+
+
+	// Maps a literal onto a dense non-negative index: 2*atom for the
+	// atom itself and 2*atom+1 for its negation.
+	public static int index(int literal)
+	{
+		return literal > 0 ? 2*(literal-1) : 2*(-literal-1)+1;
+	}
+
+
+	// Returns a sorted copy of literals with duplicates removed.
+	public static int[] normalize(int[] literals)
+	{
+		int[] sorted = Arrays.copyOf(literals, literals.length);
+		Arrays.sort(sorted);
+		int length = 0;
+		for(int i = 0; i < sorted.length; i++) {
+			if(length == 0 || sorted[length-1] != sorted[i]) {
+				sorted[length++] = sorted[i];
+			}
+		}
+		return length == sorted.length ? sorted : Arrays.copyOf(sorted, length);
+	}
+
+
+	// Returns true when the sorted clause contains this literal.
+	public static boolean clauseContainsLiteral(int[] clause, int literal)
+	{
+		return Arrays.binarySearch(clause, literal) >= 0;
+	}
+
+
+	// Returns true when the sorted clause contains a literal along
+	// with its inverse.
+	public static boolean isTautology(int[] clause)
+	{
+		for(int i = 0; i < clause.length && clause[i] < 0; i++) {
+			if(clauseContainsLiteral(clause, -clause[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// Attempts to resolve two clauses.  Every literal of one clause whose
+	// inverse appears in the other is dropped, and the remaining literals
+	// of both clauses make up the resolvent.  Returns null when the clauses
+	// share no inverse literals, and an empty clause (a conflict) when every
+	// literal of clause1 has its inverse in clause2.  Strategies that try
+	// many pairs use a Resolver directly, and copy only what they keep.
+	public static int[] resolve(int[] clause1, int[] clause2)
+	{
+		Resolver resolver = Resolver.forThread();
+		int length = resolver.resolve(clause1, clause2);
+		return length == Resolver.NONE ? null : resolver.toArray(length);
+	}
+
+
+	// Resolves two clauses on their one pair of inverse literals.  Returns
+	// null when they share no inverse pair, and also when they share more
+	// than one, as every resolvent of such clauses is a tautology.  The
+	// empty clause is only returned for two inverse unit clauses.
+	public static int[] resolveStrictly(int[] clause1, int[] clause2)
+	{
+		Resolver resolver = Resolver.forThread();
+		int length = resolver.resolveStrictly(clause1, clause2);
+		return length == Resolver.NONE ? null : resolver.toArray(length);
+	}
+
+
+	// Converts an or-node of literals into an unsorted literal array.
+	// A lone literal that is not wrapped in an or-node is accepted too.
+	public int[] clauseFromXML(XML clause)
+	{
+		if(!clause.getName().equals("or")) {
+			return new int[] { literalFromXML(clause) };
+		}
+		XML[] children = clause.getChildren();
+		int[] literals = new int[children.length];
+		for(int i = 0; i < children.length; i++) {
+			literals[i] = literalFromXML(children[i]);
+		}
+		return literals;
+	}
+
+
+	private int literalFromXML(XML literal)
+	{
+		if(literal.getName().equals("not")) {
+			return literal(internAtom(literal.getChild(0).getName()), true);
+		}
+		return literal(internAtom(literal.getName()), false);
+	}
+
+
+	// Adds the clause to set as a new or-node of literals.
+	public void appendClauseToXML(XML set, int[] clause)
+	{
+		XML or = set.addChild("or");
+		for(int i = 0; i < clause.length; i++) {
+			String atom = atomNames.get(atomOf(clause[i]));
+			if(isNegated(clause[i])) {
+				or.addChild("not").addChild(atom);
+			}
+			else {
+				or.addChild(atom);
+			}
+		}
+	}
+
+
+	// Brings set, whose children were clauses 0 to count-1 of this
+	// database, up to date: retired clauses are removed from it and every
+	// live clause with an id of count or more is appended.
+	public void updateXML(XML set, int count)
+	{
+		XML[] children = set.getChildren();
+		for(int i = count - 1; i >= 0; i--) {
+			if(retired[i]) {
+				set.removeChild(children[i]);
+			}
+		}
+		appendToXML(set, count);
+	}
+
+
+	// Appends every live clause with an id of at least first to set.
+	public void appendToXML(XML set, int first)
+	{
+		for(int i = first; i < clauses.size(); i++) {
+			if(!retired[i]) {
+				appendClauseToXML(set, clauses.get(i));
+			}
+		}
+	}
+
+
+	// Returns the live clauses as an and-node of or-nodes.
+	public XML toXML()
+	{
+		XML set = new XML("and");
+		appendToXML(set, 0);
+		return set;
+	}
+}
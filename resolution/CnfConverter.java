@@ -0,0 +1,197 @@
+package resolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Converts a formula into an equivalent set of clauses in one traversal.
+// This gives the same clauses as eliminating biconditions and conditions,
+// moving negations inwards, distributing ors over ands and collapsing,
+// but the polarity of each subformula is carried down the recursion
+// instead of rewriting the tree: a not-node just flips it, and the
+// operator at each node decides whether its operands' clauses are
+// concatenated (a conjunction) or multiplied out (a disjunction).
+// Nothing is rescanned after a change, so apart from the clauses that
+// distribution itself produces the work is linear in the formula.
+//
+// The clauses of each subformula are memoized by polarity.  Formulas are
+// hash-consed, so a subformula that occurs many times, like both sides of
+// every bicondition, is only converted once for each polarity.  The
+// memoized lists are shared and never modified.
+public class CnfConverter
+{
+	private ClauseDatabase db;
+	private HashMap<Formula,ArrayList<int[]>> positiveClauses;
+	private HashMap<Formula,ArrayList<int[]>> negativeClauses;
+
+	public CnfConverter(ClauseDatabase db)
+	{
+		this.db = db;
+		positiveClauses = new HashMap<Formula,ArrayList<int[]>>();
+		negativeClauses = new HashMap<Formula,ArrayList<int[]>>();
+	}
+
+
+	// Adds clauses to db whose conjunction is equivalent to formula.
+	public void assertFormula(Formula formula)
+	{
+		ArrayList<int[]> clauses = new ArrayList<int[]>();
+		collectConjuncts(formula, true, clauses);
+		for(int i = 0; i < clauses.size(); i++) {
+			if(!db.containsClause(clauses.get(i))) {
+				db.addClause(clauses.get(i));
+			}
+		}
+	}
+
+
+	// Returns normalized, non-tautological clauses whose conjunction is
+	// equivalent to formula when positive is set, or to its negation.
+	private ArrayList<int[]> convert(Formula formula, boolean positive)
+	{
+		HashMap<Formula,ArrayList<int[]>> memo = positive ? positiveClauses : negativeClauses;
+		ArrayList<int[]> clauses = memo.get(formula);
+		if(clauses != null) {
+			return clauses;
+		}
+		switch(formula.getKind()) {
+		case Formula.ATOM:
+			clauses = new ArrayList<int[]>(1);
+			clauses.add(new int[] { ClauseDatabase.literal(db.internAtom(formula.getName()), !positive) });
+			break;
+		case Formula.NOT:
+			clauses = convert(formula.getOperand(0), !positive);
+			break;
+		case Formula.BICONDITION:
+			// A <=> B is (!A || B) && (!B || A), and !(A <=> B) is
+			// (A || B) && (!A || !B)
+			Formula a = formula.getOperand(0);
+			Formula b = formula.getOperand(1);
+			if(positive) {
+				clauses = multiply(convert(a, false), convert(b, true));
+				clauses.addAll(multiply(convert(b, false), convert(a, true)));
+			}
+			else {
+				clauses = multiply(convert(a, true), convert(b, true));
+				clauses.addAll(multiply(convert(a, false), convert(b, false)));
+			}
+			break;
+		default:
+			if(isConjunction(formula, positive)) {
+				clauses = new ArrayList<int[]>();
+				collectConjuncts(formula, positive, clauses);
+			}
+			else {
+				ArrayList<ArrayList<int[]>> disjuncts = new ArrayList<ArrayList<int[]>>();
+				collectDisjuncts(formula, positive, disjuncts);
+				clauses = disjuncts.get(0);
+				for(int i = 1; i < disjuncts.size(); i++) {
+					clauses = multiply(clauses, disjuncts.get(i));
+				}
+			}
+		}
+		memo.put(formula, clauses);
+		return clauses;
+	}
+
+
+	// Returns true when formula, with this polarity, is a conjunction of
+	// its operands: A && B, !(A || B) and !(A => B), which is A && !B.
+	// Otherwise and, or and condition nodes are disjunctions.
+	private static boolean isConjunction(Formula formula, boolean positive)
+	{
+		return (formula.getKind() == Formula.AND) == positive;
+	}
+
+
+	// Appends the clauses of a conjunction to out.  Nested conjunctions
+	// are walked through rather than converted, so a long chain of them
+	// is concatenated once instead of once per level.
+	private void collectConjuncts(Formula formula, boolean positive, ArrayList<int[]> out)
+	{
+		int kind = formula.getKind();
+		if(kind == Formula.NOT) {
+			collectConjuncts(formula.getOperand(0), !positive, out);
+		}
+		else if((kind == Formula.AND || kind == Formula.OR || kind == Formula.CONDITION) && isConjunction(formula, positive)) {
+			for(int i = 0; i < formula.getOperandCount(); i++) {
+				collectConjuncts(formula.getOperand(i), operandPolarity(formula, i, positive), out);
+			}
+		}
+		else {
+			out.addAll(convert(formula, positive));
+		}
+	}
+
+
+	// Adds the clauses of each operand of a disjunction to disjuncts,
+	// walking through nested disjunctions in the same way.
+	private void collectDisjuncts(Formula formula, boolean positive, ArrayList<ArrayList<int[]>> disjuncts)
+	{
+		int kind = formula.getKind();
+		if(kind == Formula.NOT) {
+			collectDisjuncts(formula.getOperand(0), !positive, disjuncts);
+		}
+		else if((kind == Formula.AND || kind == Formula.OR || kind == Formula.CONDITION) && !isConjunction(formula, positive)) {
+			for(int i = 0; i < formula.getOperandCount(); i++) {
+				collectDisjuncts(formula.getOperand(i), operandPolarity(formula, i, positive), disjuncts);
+			}
+		}
+		else {
+			disjuncts.add(convert(formula, positive));
+		}
+	}
+
+
+	// The polarity operand i of an and, or or condition node occurs with:
+	// only the left side of a condition is flipped, as A => B is !A || B.
+	private static boolean operandPolarity(Formula formula, int i, boolean positive)
+	{
+		return formula.getKind() == Formula.CONDITION && i == 0 ? !positive : positive;
+	}
+
+
+	// Distributes the disjunction of two conjunctions of clauses: every
+	// clause of left is joined with every clause of right.  Tautologies
+	// are dropped as they are formed.
+	private ArrayList<int[]> multiply(ArrayList<int[]> left, ArrayList<int[]> right)
+	{
+		ArrayList<int[]> product = new ArrayList<int[]>(left.size() * right.size());
+		for(int i = 0; i < left.size(); i++) {
+			for(int j = 0; j < right.size(); j++) {
+				int[] clause = join(left.get(i), right.get(j));
+				if(!ClauseDatabase.isTautology(clause)) {
+					product.add(clause);
+				}
+				else if(db.getListener() != null) {
+					db.getListener().tautologyRemoved();
+				}
+			}
+		}
+		return product;
+	}
+
+
+	// Merges two sorted clauses into one, without duplicate literals.
+	private static int[] join(int[] c1, int[] c2)
+	{
+		int[] clause = new int[c1.length + c2.length];
+		int length = 0;
+		int i = 0;
+		int j = 0;
+		while(i < c1.length || j < c2.length) {
+			int next;
+			if(j == c2.length || (i < c1.length && c1[i] <= c2[j])) {
+				next = c1[i++];
+			}
+			else {
+				next = c2[j++];
+			}
+			if(length == 0 || clause[length-1] != next) {
+				clause[length++] = next;
+			}
+		}
+		return length == clause.length ? clause : Arrays.copyOf(clause, length);
+	}
+
+}
@@ -0,0 +1,218 @@
+package resolution;
+
+import java.util.HashMap;
+
+// Converts a formula into an equisatisfiable set of clauses by naming
+// every compound subformula with a fresh auxiliary atom (the Tseitin
+// transformation).  Unlike distributing ors over ands, the output is
+// linear in the size of the formula, but it only preserves
+// satisfiability: the formula and the clauses need not be equivalent.
+//
+// When polarityAware is set (the Plaisted-Greenbaum variant) each
+// auxiliary atom is only defined in the directions its occurrences
+// need: an atom that only occurs positively needs aux => subformula,
+// one that only occurs negatively needs subformula => aux.
+public class DefinitionalCnf
+{
+	// Occurrence polarities of a subformula
+	private static final int POSITIVE = 1;
+	private static final int NEGATIVE = 2;
+	private static final int BOTH = POSITIVE | NEGATIVE;
+
+	private ClauseDatabase db;
+	private boolean polarityAware;
+	private int auxCount;
+	private HashMap<Formula,Integer> auxiliaries;	// the atom naming each subformula
+	private HashMap<Formula,Integer> defined;		// the polarities it is defined for
+
+	public DefinitionalCnf(ClauseDatabase db, boolean polarityAware)
+	{
+		this.db = db;
+		this.polarityAware = polarityAware;
+		auxCount = 0;
+		auxiliaries = new HashMap<Formula,Integer>();
+		defined = new HashMap<Formula,Integer>();
+	}
+
+
+	// Adds clauses to db that are satisfiable exactly when formula is.
+	// Top-level conjunctions and disjunctions are asserted directly, so
+	// only the subformulas below them get auxiliary atoms.
+	public void assertFormula(Formula formula)
+	{
+		if(formula.getKind() == Formula.AND) {
+			for(int i = 0; i < formula.getOperandCount(); i++) {
+				assertFormula(formula.getOperand(i));
+			}
+		}
+		else if(formula.getKind() == Formula.OR) {
+			IntList literals = new IntList();
+			collectOperands(formula, Formula.OR, POSITIVE, literals);
+			addClause(literals.toArray());
+		}
+		else {
+			addClause(new int[] { encode(formula, POSITIVE) });
+		}
+	}
+
+
+	// Returns a literal that stands for formula, adding the definition
+	// clauses of any auxiliary atoms it needs.  Formulas are hash-consed,
+	// so a subformula that occurs more than once shares one auxiliary
+	// atom, which is only defined again for a polarity it lacks.
+	private int encode(Formula formula, int polarity)
+	{
+		if(!polarityAware) {
+			polarity = BOTH;
+		}
+		int kind = formula.getKind();
+		if(kind == Formula.ATOM) {
+			return ClauseDatabase.literal(db.internAtom(formula.getName()), false);
+		}
+		if(kind == Formula.NOT) {
+			return -encode(formula.getOperand(0), flip(polarity));
+		}
+		Integer aux = auxiliaries.get(formula);
+		int missing = aux == null ? polarity : polarity & ~defined.get(formula);
+		if(missing == 0) {
+			return aux;
+		}
+		if(kind == Formula.AND || kind == Formula.OR) {
+			IntList operands = new IntList();
+			collectOperands(formula, kind, missing, operands);
+			aux = define(formula, aux, missing);
+			if(kind == Formula.AND) {
+				defineAnd(aux, operands, missing);
+			}
+			else {
+				defineOr(aux, operands, missing);
+			}
+		}
+		else if(kind == Formula.CONDITION) {
+			// a => b is defined as !a || b
+			int a = encode(formula.getOperand(0), flip(missing));
+			int b = encode(formula.getOperand(1), missing);
+			aux = define(formula, aux, missing);
+			if((missing & POSITIVE) != 0) {
+				addClause(new int[] { -aux, -a, b });
+			}
+			if((missing & NEGATIVE) != 0) {
+				addClause(new int[] { aux, a });
+				addClause(new int[] { aux, -b });
+			}
+		}
+		else {
+			// Both sides occur with both polarities inside a bicondition
+			int a = encode(formula.getOperand(0), BOTH);
+			int b = encode(formula.getOperand(1), BOTH);
+			aux = define(formula, aux, missing);
+			if((missing & POSITIVE) != 0) {
+				addClause(new int[] { -aux, -a, b });
+				addClause(new int[] { -aux, a, -b });
+			}
+			if((missing & NEGATIVE) != 0) {
+				addClause(new int[] { aux, a, b });
+				addClause(new int[] { aux, -a, -b });
+			}
+		}
+		return aux;
+	}
+
+
+	// Records that formula is defined for the polarities in missing,
+	// naming it with a new auxiliary atom if it has none yet.
+	private int define(Formula formula, Integer aux, int missing)
+	{
+		if(aux == null) {
+			aux = newAuxiliary();
+			auxiliaries.put(formula, aux);
+			defined.put(formula, missing);
+		}
+		else {
+			defined.put(formula, defined.get(formula) | missing);
+		}
+		return aux;
+	}
+
+
+	// Encodes the operands of a chain of nested and-nodes or or-nodes,
+	// so the whole chain shares one auxiliary atom.
+	private void collectOperands(Formula formula, int kind, int polarity, IntList operands)
+	{
+		for(int i = 0; i < formula.getOperandCount(); i++) {
+			Formula operand = formula.getOperand(i);
+			if(operand.getKind() == kind) {
+				collectOperands(operand, kind, polarity, operands);
+			}
+			else {
+				operands.add(encode(operand, polarity));
+			}
+		}
+	}
+
+
+	// aux <=> (l1 && ... && ln)
+	private void defineAnd(int aux, IntList operands, int polarity)
+	{
+		if((polarity & POSITIVE) != 0) {
+			for(int i = 0; i < operands.size(); i++) {
+				addClause(new int[] { -aux, operands.get(i) });
+			}
+		}
+		if((polarity & NEGATIVE) != 0) {
+			int[] clause = new int[operands.size() + 1];
+			clause[0] = aux;
+			for(int i = 0; i < operands.size(); i++) {
+				clause[i+1] = -operands.get(i);
+			}
+			addClause(clause);
+		}
+	}
+
+
+	// aux <=> (l1 || ... || ln)
+	private void defineOr(int aux, IntList operands, int polarity)
+	{
+		if((polarity & POSITIVE) != 0) {
+			int[] clause = new int[operands.size() + 1];
+			clause[0] = -aux;
+			for(int i = 0; i < operands.size(); i++) {
+				clause[i+1] = operands.get(i);
+			}
+			addClause(clause);
+		}
+		if((polarity & NEGATIVE) != 0) {
+			for(int i = 0; i < operands.size(); i++) {
+				addClause(new int[] { aux, -operands.get(i) });
+			}
+		}
+	}
+
+
+	// Auxiliary atoms are named aux1, aux2, ...  Atoms read by LogicParser
+	// never contain digits, so these names cannot clash with them.
+	private int newAuxiliary()
+	{
+		String name;
+		do {
+			name = "aux" + (++auxCount);
+		} while(db.hasAtom(name));
+		return ClauseDatabase.literal(db.internAtom(name), false);
+	}
+
+
+	private void addClause(int[] literals)
+	{
+		int[] clause = ClauseDatabase.normalize(literals);
+		if(!ClauseDatabase.isTautology(clause) && !db.containsClause(clause)) {
+			db.addClause(clause);
+		}
+	}
+
+
+	private static int flip(int polarity)
+	{
+		return ((polarity & POSITIVE) != 0 ? NEGATIVE : 0) | ((polarity & NEGATIVE) != 0 ? POSITIVE : 0);
+	}
+
+}
@@ -0,0 +1,241 @@
+package resolution;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import processing.data.XML;
+
+// Reads and writes clause sets in the DIMACS CNF format used by SAT
+// benchmarks: comment lines starting with c, a "p cnf <variables>
+// <clauses>" header, and then clauses as signed variable numbers, each
+// ended by 0.  Variable k is atom k-1 of the database, so a DIMACS
+// literal is already a ClauseDatabase literal and needs no translation.
+//
+// The reader scans bytes straight from a channel through one reusable
+// buffer into the database; no text, tokens or XML are built on the way.
+// Clauses are added in file order, as addClause() normalizes them and
+// with duplicates and tautologies kept, so clause k of the file is
+// clause k-1 of the database, as proof files expect.  Variables read
+// from a file are named x1, x2, and so on; the writer adds a comment
+// naming every atom that is called anything else.
+public class Dimacs
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ReadableByteChannel in;
+	private ByteBuffer buffer;
+	private int line;		// for error messages
+
+	private Dimacs(ReadableByteChannel in)
+	{
+		this.in = in;
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.flip();
+		line = 1;
+	}
+
+
+	public static ClauseDatabase read(Path file) throws IOException
+	{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return read(channel);
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+
+	// Reads one problem from in, which is left open.  Throws
+	// IllegalArgumentException when the input is not DIMACS CNF.
+	public static ClauseDatabase read(ReadableByteChannel in) throws IOException
+	{
+		return new Dimacs(in).readProblem();
+	}
+
+
+	// Writes the live clauses of db.  Atom k is written as variable k+1.
+	public static void write(ClauseDatabase db, Writer out) throws IOException
+	{
+		for(int atom = 0; atom < db.getAtomCount(); atom++) {
+			if(!db.getAtomName(atom).equals(variableName(atom + 1))) {
+				out.write("c " + (atom + 1) + " " + db.getAtomName(atom) + "\n");
+			}
+		}
+		out.write("p cnf " + db.getAtomCount() + " " + db.getLiveCount() + "\n");
+		StringBuilder clause = new StringBuilder();
+		for(int id = 0; id < db.size(); id++) {
+			if(db.isRetired(id)) {
+				continue;
+			}
+			clause.setLength(0);
+			int[] literals = db.getClause(id);
+			for(int i = 0; i < literals.length; i++) {
+				clause.append(literals[i]).append(' ');
+			}
+			out.append(clause.append("0\n"));
+		}
+	}
+
+
+	// Writes a collapsed set, as left by LogicPipeline.collapse(): an
+	// and-node whose children are or-nodes of literals.
+	public static void write(XML set, Writer out) throws IOException
+	{
+		write(ClauseDatabase.fromXML(set), out);
+	}
+
+
+	private static String variableName(int variable)
+	{
+		return "x" + variable;
+	}
+
+
+	private ClauseDatabase readProblem() throws IOException
+	{
+		ClauseDatabase db = new ClauseDatabase();
+		IntList clause = new IntList();
+		boolean header = false;
+		int c;
+		while((c = skipSpace()) != -1) {
+			if(c == 'c') {
+				skipLine();
+			}
+			else if(c == 'p') {
+				if(header) {
+					throw error("second problem line");
+				}
+				expectWord("cnf");
+				int variables = readNumber(skipSpace());
+				readNumber(skipSpace());	// the clause count is only a hint
+				internVariables(db, variables);
+				header = true;
+			}
+			else if(c == '%') {
+				break;	// SATLIB files end with "%" and "0"
+			}
+			else {
+				if(!header) {
+					throw error("clause before the problem line");
+				}
+				int literal = readNumber(c);
+				if(literal != 0) {
+					internVariables(db, Math.abs(literal));
+					clause.add(literal);
+				}
+				else {
+					db.addClause(clause.toArray());
+					clause.clear();
+				}
+			}
+		}
+		if(!header) {
+			throw error("no problem line");
+		}
+		if(clause.size() > 0) {
+			// The last clause may lack its 0
+			db.addClause(clause.toArray());
+		}
+		return db;
+	}
+
+
+	// Interns variables up to count, so variable k is atom k-1
+	private static void internVariables(ClauseDatabase db, int count)
+	{
+		for(int variable = db.getAtomCount() + 1; variable <= count; variable++) {
+			db.internAtom(variableName(variable));
+		}
+	}
+
+
+	// Returns the next byte, or -1 at the end of the input
+	private int next() throws IOException
+	{
+		if(!buffer.hasRemaining()) {
+			buffer.clear();
+			int read;
+			do {
+				read = in.read(buffer);
+			} while(read == 0);
+			buffer.flip();
+			if(read < 0) {
+				return -1;
+			}
+		}
+		int c = buffer.get() & 0xff;
+		if(c == '\n') {
+			line++;
+		}
+		return c;
+	}
+
+
+	// Returns the first byte that is not white space
+	private int skipSpace() throws IOException
+	{
+		int c = next();
+		while(c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+			c = next();
+		}
+		return c;
+	}
+
+
+	private void skipLine() throws IOException
+	{
+		int c = next();
+		while(c != '\n' && c != -1) {
+			c = next();
+		}
+	}
+
+
+	private void expectWord(String word) throws IOException
+	{
+		int c = skipSpace();
+		for(int i = 0; i < word.length(); i++, c = next()) {
+			if(c != word.charAt(i)) {
+				throw error("expected '" + word + "'");
+			}
+		}
+	}
+
+
+	// Reads a decimal integer whose first byte is c
+	private int readNumber(int c) throws IOException
+	{
+		boolean negative = c == '-';
+		if(negative) {
+			c = next();
+		}
+		if(c < '0' || c > '9') {
+			throw error(c == -1 ? "unexpected end of input" : "unexpected '" + (char)c + "'");
+		}
+		long value = 0;
+		while(c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			if(value > Integer.MAX_VALUE) {
+				throw error("number too large");
+			}
+			c = next();
+		}
+		if(c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != -1) {
+			throw error("unexpected '" + (char)c + "'");
+		}
+		return negative ? (int)-value : (int)value;
+	}
+
+
+	private IllegalArgumentException error(String message)
+	{
+		return new IllegalArgumentException("DIMACS line " + line + ": " + message);
+	}
+}
@@ -13,7 +13,15 @@ public class DrawableTree
 	
 	// for testing purposes, you may capture screenshot or full tree graphic
 	public void captureScreenshot(String filename) { if(p != null) p.save(filename); }
-	public void captureFullGraphic(String filename) { if(g != null) g.save(filename); }
+	public void captureFullGraphic(String filename) 
+	{ 
+		if(layout == null) return;
+		PGraphics full = p.createGraphics((int)getFullWidth(), (int)getFullHeight());
+		full.beginDraw();
+			renderTree(full, 0, 0, 1);
+		full.endDraw();
+		full.save(filename);
+	}
 
 	// ************************************************************************
 	// The rest of this implementation can be ignored by students. 
@@ -21,25 +29,49 @@ public class DrawableTree
 	// changed for the purposes of testing and grading your code.
 	// ************************************************************************
 	
-	private PGraphics g;
+	private TreeLayout layout;	// null until the tree is first rendered
+	private PGraphics view;		// the part of the tree on screen
+	private boolean dirtyView;	// view is only redrawn when this is true
 	private float x, y, w, h, zoom;
 	private boolean keyReady;
 	private static final int RECT_WIDTH = 96;
 	private static final int RECT_HEIGHT = 32;
+	private static final float SLOT_WIDTH = RECT_WIDTH*1.5f;
+	private static final float LEVEL_HEIGHT = RECT_HEIGHT*1.5f;
+	// subtrees narrower than this many pixels on screen are drawn as one mark
+	private static final float MIN_SUBTREE_PIXELS = 2;
 
 	public DrawableTree(PApplet p)
 	{
 		this.p = p;
 		tree = null;
 		dirtyTree = false;
-		g = null;
+		layout = null;
+		view = null;
+		dirtyView = false;
 	}
 	
 	public void draw()
 	{
 		if(dirtyTree) render(tree);
 		p.background(255);
-		if(g != null) p.image(g,x,y,w,h);		
+		if(layout != null)
+		{
+			if(view == null || view.width != p.width || view.height != p.height)
+			{
+				view = p.createGraphics(p.width, p.height);
+				dirtyView = true;
+			}
+			if(dirtyView)
+			{
+				view.beginDraw();
+					view.background(255);
+					renderTree(view, x, y, w / getFullWidth());
+				view.endDraw();
+				dirtyView = false;
+			}
+			p.image(view,0,0);
+		}
 		if(p.mousePressed)
 		{
 			if(p.mouseButton == PApplet.LEFT)
@@ -61,82 +93,91 @@ public class DrawableTree
 			keyReady = true;
 	}
 	
+	// Lays the tree out again.  The layout takes linear time, and nothing
+	// is drawn until the next frame, which only draws what is in view.
 	private void render(XML xml)
 	{
-		int depth = getDepth(xml);
-		int[] widths = new int[depth];
-		int width = getWidths(xml,widths);
-		
-		g = p.createGraphics((int)((width+1)*RECT_WIDTH*1.5), (int)((depth+1)*RECT_HEIGHT*1.5));
-		g.beginDraw();
-			g.background(128);
-			renderTree(xml, widths);
-		g.endDraw();
-		
+		layout = new TreeLayout(xml);
 		resetView();
 		dirtyTree = false;
 	}
 	
-	private int getDepth(XML xml)
-	{
-		int maxDepth = 0;		
-		XML[] children = xml.getChildren();
-		for(int i=0;i<children.length; i++)
-		{
-			int depth = getDepth(children[i]);
-			if(depth > maxDepth) maxDepth = depth;
-		}
-		return maxDepth + 1;
-	}
-
-	private int getWidths(XML xml, int[] widths)
-	{
-		return getWidthsHelper(xml,widths,0,0);
-	}
+	// The size of the whole tree drawn at full scale
+	private float getFullWidth() { return (float)(layout.getWidth()+1)*SLOT_WIDTH; }
+	private float getFullHeight() { return layout.getHeight()*LEVEL_HEIGHT; }
 	
-	private int getWidthsHelper(XML xml, int[] widths, int depth, int maxWidth)
+	private float getNodeX(int i) { return (float)(layout.getX(i)+0.5)*SLOT_WIDTH; }
+	private float getNodeY(int i) { return (layout.getDepth(i)+0.5f)*LEVEL_HEIGHT; }
+
+	// Draws the tree into target with its top left corner at (left, top)
+	// and scaled by scale.  Subtrees whose extent is entirely out of
+	// target are skipped, apart from the line to their root, and subtrees
+	// too small to make out are drawn as a single line.
+	private void renderTree(PGraphics target, float left, float top, float scale)
 	{
-		widths[depth]++;
-		if(widths[depth] > maxWidth) maxWidth = widths[depth];
-		XML[] children = xml.getChildren();
-		for(int i=0;i<children.length; i++)
+		target.fill(128);
+		target.noStroke();
+		target.rect(left, top, getFullWidth()*scale, getFullHeight()*scale);
+		target.stroke(0);
+		target.fill(255);
+		target.pushMatrix();
+		target.translate(left, top);
+		target.scale(scale);
+		target.rectMode(PApplet.CENTER);
+		target.textAlign(PApplet.CENTER,PApplet.CENTER);
+		// The part of the tree inside target, in full scale coordinates
+		float viewLeft = -left/scale - RECT_WIDTH;
+		float viewRight = (target.width-left)/scale + RECT_WIDTH;
+		float viewTop = -top/scale - RECT_HEIGHT;
+		float viewBottom = (target.height-top)/scale + RECT_HEIGHT;
+		int i = 0;
+		while(i < layout.size())
 		{
-			maxWidth = getWidthsHelper(children[i],widths,depth+1,maxWidth);
+			float subtreeLeft = (float)(layout.getSubtreeMinX(i)+0.5)*SLOT_WIDTH;
+			float subtreeRight = (float)(layout.getSubtreeMaxX(i)+0.5)*SLOT_WIDTH;
+			float subtreeBottom = (layout.getSubtreeMaxDepth(i)+0.5f)*LEVEL_HEIGHT;
+			float nodeX = getNodeX(i);
+			float nodeY = getNodeY(i);
+			int parent = layout.getParent(i);
+			// The line from the parent, unless both ends are above or below the view
+			if(parent >= 0 && nodeY > viewTop && getNodeY(parent) < viewBottom)
+				target.line(getNodeX(parent), getNodeY(parent)+RECT_HEIGHT/2, nodeX, nodeY-RECT_HEIGHT/2);
+			if(subtreeRight < viewLeft || subtreeLeft > viewRight || subtreeBottom < viewTop || nodeY > viewBottom)
+			{
+				i = layout.getSubtreeEnd(i);
+			}
+			else if(layout.getSubtreeEnd(i) > i+1 && (subtreeRight-subtreeLeft+RECT_WIDTH)*scale < MIN_SUBTREE_PIXELS)
+			{
+				target.line(nodeX, nodeY, nodeX, subtreeBottom);
+				i = layout.getSubtreeEnd(i);
+			}
+			else
+			{
+				if(nodeX > viewLeft && nodeX < viewRight && nodeY > viewTop)
+					renderNode(target, i);
+				i++;
+			}
 		}
-		return maxWidth;
-	}
-
-	private void renderTree(XML xml, int[] widths)
-	{
-		g.rectMode(PApplet.CENTER);
-		g.textAlign(PApplet.CENTER,PApplet.CENTER);
-		renderTreeHelper(xml, widths, 0, new int[widths.length]);
+		target.popMatrix();
 	}
 	
-	private void renderTreeHelper(XML xml, int[] widths, int depth, int[] ltor)
+	private void renderNode(PGraphics target, int i)
 	{
-		float x = (g.width / widths[depth]) * (0.5f + ltor[depth]++);
-		float y = (g.height / widths.length) * (0.5f + depth);
-		xml.setFloat("x", x);
-		xml.setFloat("y", y);
-		if(xml.getParent() != null)
-			g.line(xml.getParent().getFloat("x"), xml.getParent().getFloat("y")+RECT_HEIGHT/2, x, y-RECT_HEIGHT/2);
+		XML xml = layout.getNode(i);
+		float x = getNodeX(i);
+		float y = getNodeY(i);
 		if(xml.hasAttribute("altColor"))
 		{
 			String hexColor = xml.getString("altColor");
-			g.fill(getColorComponent(hexColor,0), getColorComponent(hexColor,1), getColorComponent(hexColor,2));
+			target.fill(getColorComponent(hexColor,0), getColorComponent(hexColor,1), getColorComponent(hexColor,2));
 		}
-		g.rect(x, y, RECT_WIDTH, RECT_HEIGHT, 4);
-		g.fill(0); 
+		target.rect(x, y, RECT_WIDTH, RECT_HEIGHT, 4);
+		target.fill(0); 
 		if(xml.hasAttribute("altName"))
-			g.text(xml.getString("altName"),x, y, RECT_WIDTH, RECT_HEIGHT);
+			target.text(xml.getString("altName"),x, y, RECT_WIDTH, RECT_HEIGHT);
 		else
-			g.text(xml.getName(),x, y, RECT_WIDTH, RECT_HEIGHT);
-		g.fill(255);
-		
-		XML[] children = xml.getChildren();
-		for(int i=0;i<children.length; i++)
-			renderTreeHelper(children[i],widths,depth+1,ltor);
+			target.text(xml.getName(),x, y, RECT_WIDTH, RECT_HEIGHT);
+		target.fill(255);
 	}
 	
 	private int getColorComponent(String hex, int component)
@@ -153,6 +194,7 @@ public class DrawableTree
 	{
 		x += dx;
 		y += dy;
+		if(dx != 0 || dy != 0) dirtyView = true;
 	}
 	
 	private void zoom(int dy)
@@ -167,6 +209,7 @@ public class DrawableTree
 			x -= w/2;
 			y -= h/2;
 			zoom = 0;
+			dirtyView = true;
 		}
 		if(zoom < -8)
 		{
@@ -177,17 +220,19 @@ public class DrawableTree
 			x -= w/2;
 			y -= h/2;
 			zoom = 0;
+			dirtyView = true;
 		}
 	}
 	
 	private void resetView()
 	{
-		x = (p.width-g.width)/2;
-		y = (p.height-g.height)/2;
-		w = g.width;
-		h = g.height;
+		x = (p.width-getFullWidth())/2;
+		y = (p.height-getFullHeight())/2;
+		w = getFullWidth();
+		h = getFullHeight();
 		zoom = 0;
 		keyReady = true;
+		dirtyView = true;
 	}
 	
 	// list of methods that will be implemented/overridden in your DecisionTree
@@ -197,6 +242,10 @@ public class DrawableTree
 	public void moveNegationInwards() {}
 	public void distributeOrsOverAnds() {}
 	public void collapse() {}
+	public void convertToCnf() {}
+	public void convertToDefinitionalCnf(boolean polarityAware) {}
+	public void convertKnowledgeBase() {}
 	public boolean applyResolution() { return false; }
+	public void setStrategy(ResolutionStrategy strategy) {}
 	public void resolve() {}
 }
@@ -0,0 +1,81 @@
+package resolution;
+
+// An immutable node of a propositional formula.  Formulas are only made
+// by a FormulaFactory, which hash-conses them: equal subformulas made by
+// the same factory are the same object, so a formula is a DAG in which
+// every distinct subformula is stored once, and == compares formulas.
+// Results computed for a subformula can be memoized against the node.
+public final class Formula
+{
+	// Kinds of node
+	public static final int ATOM = 0;
+	public static final int NOT = 1;
+	public static final int AND = 2;
+	public static final int OR = 3;
+	public static final int CONDITION = 4;
+	public static final int BICONDITION = 5;
+
+	private final int kind;
+	private final String name;			// atoms only
+	private final Formula[] operands;	// empty for atoms
+	private final int id;				// order of creation in the factory
+	private final int hash;
+
+	Formula(int kind, String name, Formula[] operands, int id)
+	{
+		this.kind = kind;
+		this.name = name;
+		this.operands = operands;
+		this.id = id;
+		this.hash = hash(kind, name, operands);
+	}
+
+
+	public int getKind() { return kind; }
+	public String getName() { return name; }
+	public int getOperandCount() { return operands.length; }
+	public Formula getOperand(int i) { return operands[i]; }
+
+	// Ids are dense: the factory numbers its formulas 0, 1, 2, ...
+	public int getId() { return id; }
+
+
+	// The structural hash.  No equals() is needed: equal formulas from
+	// one factory are the same object.
+	public int hashCode()
+	{
+		return hash;
+	}
+
+
+	// Returns true when this node has the given contents.  Operands are
+	// compared by identity, since they are already hash-consed.
+	boolean matches(int kind, String name, Formula[] operands)
+	{
+		if(this.kind != kind || this.operands.length != operands.length) {
+			return false;
+		}
+		if(kind == ATOM) {
+			return this.name.equals(name);
+		}
+		for(int i = 0; i < operands.length; i++) {
+			if(this.operands[i] != operands[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	static int hash(int kind, String name, Formula[] operands)
+	{
+		if(kind == ATOM) {
+			return name.hashCode();
+		}
+		int h = kind;
+		for(int i = 0; i < operands.length; i++) {
+			h = 31*h + operands[i].id;
+		}
+		return h ^ (h >>> 16);
+	}
+}
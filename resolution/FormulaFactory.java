@@ -0,0 +1,120 @@
+package resolution;
+
+import processing.data.XML;
+
+// Makes hash-consed Formulas.  Every node is looked up in an
+// open-addressing table before it is created, so asking twice for the
+// same atom or the same operator over the same operands returns the
+// same object, and the memory a formula takes grows with its number of
+// distinct subformulas rather than with its size as a tree.
+public class FormulaFactory
+{
+	// XML node names by Formula kind; any other name is an atom
+	private static final String[] NAMES = { null, "not", "and", "or", "condition", "bicondition" };
+	private static final Formula[] NO_OPERANDS = new Formula[0];
+
+	private Formula[] table;	// null when a slot is empty
+	private int count;
+
+	public FormulaFactory()
+	{
+		table = new Formula[64];
+		count = 0;
+	}
+
+
+	public Formula atom(String name) { return make(Formula.ATOM, name, NO_OPERANDS); }
+	public Formula not(Formula operand) { return make(Formula.NOT, null, new Formula[] { operand }); }
+	public Formula and(Formula left, Formula right) { return make(Formula.AND, null, new Formula[] { left, right }); }
+	public Formula or(Formula left, Formula right) { return make(Formula.OR, null, new Formula[] { left, right }); }
+	public Formula condition(Formula left, Formula right) { return make(Formula.CONDITION, null, new Formula[] { left, right }); }
+	public Formula bicondition(Formula left, Formula right) { return make(Formula.BICONDITION, null, new Formula[] { left, right }); }
+
+
+	// The number of distinct formulas made so far.
+	public int size()
+	{
+		return count;
+	}
+
+
+	// Returns the formula for an XML logic tree node, such as a child of
+	// the <logic> root.  And-nodes and or-nodes may have any number of
+	// children; repeated subtrees of the XML become one shared formula.
+	public Formula fromXML(XML node)
+	{
+		String name = node.getName();
+		int kind = kindOf(name);
+		if(kind == Formula.ATOM) {
+			return atom(name);
+		}
+		XML[] children = node.getChildren();
+		Formula[] operands = new Formula[children.length];
+		for(int i = 0; i < children.length; i++) {
+			operands[i] = fromXML(children[i]);
+		}
+		return make(kind, null, operands);
+	}
+
+
+	// Adds formula to parent as a new XML subtree.  Shared subformulas
+	// are written out once for every place they occur.
+	public static void appendToXML(XML parent, Formula formula)
+	{
+		if(formula.getKind() == Formula.ATOM) {
+			parent.addChild(formula.getName());
+			return;
+		}
+		XML node = parent.addChild(NAMES[formula.getKind()]);
+		for(int i = 0; i < formula.getOperandCount(); i++) {
+			appendToXML(node, formula.getOperand(i));
+		}
+	}
+
+
+	private static int kindOf(String name)
+	{
+		for(int kind = 1; kind < NAMES.length; kind++) {
+			if(NAMES[kind].equals(name)) {
+				return kind;
+			}
+		}
+		return Formula.ATOM;
+	}
+
+
+	// Returns the existing formula with these contents, or makes one.
+	private Formula make(int kind, String name, Formula[] operands)
+	{
+		int mask = table.length - 1;
+		int slot = Formula.hash(kind, name, operands) & mask;
+		for(; table[slot] != null; slot = (slot + 1) & mask) {
+			if(table[slot].matches(kind, name, operands)) {
+				return table[slot];
+			}
+		}
+		Formula formula = new Formula(kind, name, operands, count++);
+		table[slot] = formula;
+		if(count * 2 > table.length) {
+			rehash();
+		}
+		return formula;
+	}
+
+
+	private void rehash()
+	{
+		Formula[] old = table;
+		table = new Formula[old.length * 2];
+		int mask = table.length - 1;
+		for(int i = 0; i < old.length; i++) {
+			if(old[i] != null) {
+				int slot = old[i].hashCode() & mask;
+				while(table[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = old[i];
+			}
+		}
+	}
+}
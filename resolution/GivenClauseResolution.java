@@ -0,0 +1,511 @@
+package resolution;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Saturation with a given-clause loop.  Clauses wait in the unprocessed
+// queue until they are selected as the given clause, which is resolved
+// against the processed clauses and then becomes processed itself.  New
+// resolvents join the unprocessed queue, so each pair of clauses is
+// resolved exactly once instead of once per pass.  Clauses retired by
+// subsumption are skipped wherever they are found.
+//
+// Only pairs that share an inverse literal can resolve, so the partners
+// of a given clause are looked up in the occurrence index under the
+// inverse of each of its literals rather than tried one by one.
+//
+// With units set, unit clauses are exploited first.  Before the loop and
+// after every given clause, each new unit is propagated: clauses holding
+// its literal are retired, clauses holding the inverse are replaced by
+// the clause without it, and every later resolvent is simplified the
+// same way before it is added.  Unit clauses also have their own queue,
+// which is always served before the unprocessed queue.
+//
+// With strict set, clauses are resolved with resolveStrictly() rather
+// than resolve(), on exactly one pair of inverse literals.
+//
+// The loop stops without a conflict when the database's budget is
+// exhausted, checking it before each pair of clauses is resolved.
+//
+// When the database has a ProofRecorder, every resolvent and the final
+// conflict are recorded with the clauses they came from.  Only strict
+// resolution makes single resolution steps, so it is required then.
+//
+// The loop keeps its state in fields, so one instance must not run on
+// two databases at the same time.
+public class GivenClauseResolution implements ResolutionStrategy
+{
+	protected static final int NEVER = Integer.MAX_VALUE;
+	// Returned by addResolvent() when simplifying leaves the empty clause
+	protected static final int CONFLICT = -2;
+	// Passed to addResolvent() for a clause that was only simplified
+	private static final int NO_PARTNER = -1;
+	// Stands in resolveGiven()'s resolvents for one the database held already
+	protected static final int[] DUPLICATE = new int[0];
+
+	protected boolean units;
+	protected boolean strict;
+	protected ClauseDatabase db;
+	protected ArrayDeque<Integer> unprocessed;
+	protected ArrayDeque<Integer> unprocessedUnits;	// only used with units set
+	protected int[] processedAt;	// turn each clause was processed on, or NEVER
+	protected int turn;				// number of clauses taken from the queues
+	private IntList pendingUnits;	// unit and empty clauses not yet propagated
+	private IntList propagated;		// unit clauses propagated, in order
+	private boolean[] assigned;		// literals, by index, that units made true
+	private ProofRecorder proof;	// null when no proof is recorded
+	private int[] unitOf;			// unit clause of each assigned literal, with a proof
+
+	public GivenClauseResolution()
+	{
+		this(false);
+	}
+
+	public GivenClauseResolution(boolean units)
+	{
+		this(units, false);
+	}
+
+	public GivenClauseResolution(boolean units, boolean strict)
+	{
+		this.units = units;
+		this.strict = strict;
+	}
+
+
+	public boolean isStrict() { return strict; }
+
+
+	public boolean findConflict(ClauseDatabase db)
+	{
+		start(db);
+		return saturate();
+	}
+
+
+	// Runs the loop from its current state until the queues are empty, a
+	// conflict is found or the budget is exhausted.  Returns true on a
+	// conflict.
+	protected boolean saturate()
+	{
+		IntList partners = new IntList();
+		growAssigned();
+		if(propagate()) {
+			return true;
+		}
+		while(hasUnprocessed() && !db.isOverBudget()) {
+			int given = nextGiven();
+			if(db.isRetired(given)) {
+				turn++;
+				continue;
+			}
+			collectPartners(given, turn, partners);
+			if(resolveGiven(given, partners, null) || propagate()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// Queues every clause of db as unprocessed
+	protected void start(ClauseDatabase db)
+	{
+		this.db = db;
+		proof = db.getProof();
+		if(proof != null && !strict) {
+			throw new IllegalStateException("Recording a proof needs strict resolution");
+		}
+		unprocessed = new ArrayDeque<Integer>();
+		unprocessedUnits = new ArrayDeque<Integer>();
+		processedAt = new int[Math.max(16, db.size())];
+		Arrays.fill(processedAt, NEVER);
+		turn = 0;
+		pendingUnits = new IntList();
+		propagated = new IntList();
+		assigned = new boolean[2 * db.getAtomCount()];
+		unitOf = proof != null ? new int[assigned.length] : null;
+		for(int i = 0; i < db.size(); i++) {
+			enqueue(i);
+		}
+	}
+
+
+	protected boolean hasUnprocessed()
+	{
+		return !unprocessed.isEmpty() || !unprocessedUnits.isEmpty();
+	}
+
+
+	protected int unprocessedCount()
+	{
+		return unprocessed.size() + unprocessedUnits.size();
+	}
+
+
+	// Takes the next given clause: the oldest unprocessed unit if there
+	// is one, otherwise the oldest unprocessed clause.
+	protected int nextGiven()
+	{
+		return !unprocessedUnits.isEmpty() ? unprocessedUnits.poll() : unprocessed.poll();
+	}
+
+
+	// Returns a clause taken by nextGiven() to the head of its queue.
+	// Clauses are returned newest first, so the queues end up as they were.
+	protected void requeue(int id)
+	{
+		if(units && db.getClause(id).length == 1) {
+			unprocessedUnits.addFirst(id);
+		}
+		else {
+			unprocessed.addFirst(id);
+		}
+	}
+
+
+	// Drops every clause with an id of size or more from the loop's state,
+	// along with what their units assigned, and empties the queues, after
+	// the database was truncated to size.
+	protected void rollback(int size)
+	{
+		unprocessed.clear();
+		unprocessedUnits.clear();
+		pendingUnits.clear();
+		int kept = propagated.size();
+		while(kept > 0 && propagated.get(kept - 1) >= size) {
+			kept--;
+			assigned[ClauseDatabase.index(db.getClause(propagated.get(kept))[0])] = false;
+		}
+		propagated.shrink(kept);
+		if(size < processedAt.length) {
+			Arrays.fill(processedAt, size, processedAt.length, NEVER);
+		}
+	}
+
+
+	// Queues a clause that was added to the database after start().  With
+	// units set it is simplified first, like a resolvent.  Returns true
+	// when that leaves the empty clause.
+	protected boolean admit(int id)
+	{
+		if(units) {
+			growAssigned();
+			int[] clause = db.getClause(id);
+			if(simplify(clause) != clause) {
+				db.retire(id);
+				return addResolvent(clause, id, NO_PARTNER) == CONFLICT;
+			}
+		}
+		enqueue(id);
+		return false;
+	}
+
+
+	private void enqueue(int id)
+	{
+		if(db.getClause(id).length == 0) {
+			// An empty clause given as input is a conflict, which
+			// propagate() reports
+			pendingUnits.add(id);
+		}
+		if(units && db.getClause(id).length == 1) {
+			unprocessedUnits.add(id);
+			pendingUnits.add(id);
+		}
+		else {
+			unprocessed.add(id);
+		}
+	}
+
+
+	// Collects, in id order and without repeats, the clauses processed
+	// before turn that hold the inverse of some literal of given.  Only
+	// reads the database, so workers may call it concurrently.
+	protected void collectPartners(int given, int turn, IntList partners)
+	{
+		int[] givenClause = db.getClause(given);
+		partners.clear();
+		for(int i = 0; i < givenClause.length; i++) {
+			int inverse = -givenClause[i];
+			for(int j = 0; j < db.getOccurrenceCount(inverse); j++) {
+				int other = db.getOccurrence(inverse, j);
+				if(processedAt[other] < turn) {
+					partners.add(other);
+				}
+			}
+		}
+		partners.sort();
+		partners.removeAdjacentDuplicates();
+	}
+
+
+	// Resolves the given clause against its partners, adds the resolvents
+	// and marks given as processed.  When resolvents is not null it holds
+	// the result of resolve() for each partner, computed in advance, or
+	// DUPLICATE for one the database already held.  Otherwise each pair
+	// is resolved into the thread's Resolver, and only the resolvents
+	// that are added are copied out of it.  Returns true when a conflict
+	// is found.  When the budget is exhausted the remaining partners are
+	// left out.
+	protected boolean resolveGiven(int given, IntList partners, int[][] resolvents)
+	{
+		int[] givenClause = db.getClause(given);
+		ResolutionListener listener = db.getListener();
+		Resolver resolver = Resolver.forThread();
+		// Processed clauses are always older than the given clause, so
+		// they are passed first and in id order, just as in the
+		// all-pairs loop.
+		for(int i = 0; i < partners.size() && !db.isRetired(given) && !db.isOverBudget(); i++) {
+			int other = partners.get(i);
+			if(db.isRetired(other)) {
+				continue;
+			}
+			if(listener != null) {
+				listener.pairTried();
+			}
+			int[] resolvent = null;
+			int length;
+			if(resolvents == null) {
+				length = resolve(resolver, db.getClause(other), givenClause);
+			}
+			else if(resolvents[i] == DUPLICATE) {
+				if(listener != null) {
+					listener.duplicateRejected();
+				}
+				continue;
+			}
+			else {
+				resolvent = resolvents[i];
+				length = resolvent == null ? Resolver.NONE : resolvent.length;
+			}
+			if(length == Resolver.NONE) {
+				// Do nothing, clauses could not be resolved
+			}
+			else if(length == 0) {
+				// Conflict found!
+				if(proof != null) {
+					int[] empty = new int[0];
+					record(db.size(), empty, empty, other, given);
+				}
+				return true;
+			}
+			else if((resolvent != null ? addResolvent(resolvent, other, given) : addResolvent(resolver, length, other, given)) == CONFLICT) {
+				return true;
+			}
+		}
+		growProcessedAt();
+		if(!db.isRetired(given)) {
+			processedAt[given] = turn;
+		}
+		turn++;
+		return false;
+	}
+
+
+	protected int[] resolve(int[] clause1, int[] clause2)
+	{
+		return strict ? ClauseDatabase.resolveStrictly(clause1, clause2) : ClauseDatabase.resolve(clause1, clause2);
+	}
+
+
+	// Like resolve(), into the scratch buffer of resolver.  Returns the
+	// length of the resolvent or Resolver.NONE.
+	protected int resolve(Resolver resolver, int[] clause1, int[] clause2)
+	{
+		return strict ? resolver.resolveStrictly(clause1, clause2) : resolver.resolve(clause1, clause2);
+	}
+
+
+	// Adds a resolvent of parent and partner to the database and queues
+	// it.  With units set it is first simplified by the propagated units;
+	// partner is NO_PARTNER when the resolvent is just parent's clause,
+	// passed to be simplified.  Returns its id, -1 when it was dropped, or
+	// CONFLICT.
+	private int addResolvent(int[] resolvent, int parent, int partner)
+	{
+		int[] derived = resolvent;
+		if(units) {
+			derived = simplify(resolvent);
+			if(derived == null) {
+				return -1;
+			}
+			if(derived.length == 0) {
+				if(proof != null) {
+					record(db.size(), derived, resolvent, parent, partner);
+				}
+				return CONFLICT;
+			}
+		}
+		int id = db.addResolvent(derived);
+		if(id >= 0) {
+			if(proof != null) {
+				record(id, derived, resolvent, parent, partner);
+			}
+			enqueue(id);
+		}
+		return id;
+	}
+
+
+	// Like addResolvent(), for a resolvent of length literals left in the
+	// scratch buffer of resolver, which is simplified in place.  A proof
+	// records the resolvent as it was, so it is copied out first then.
+	private int addResolvent(Resolver resolver, int length, int parent, int partner)
+	{
+		if(proof != null) {
+			return addResolvent(resolver.toArray(length), parent, partner);
+		}
+		int[] literals = resolver.literals();
+		if(units) {
+			length = simplify(literals, length);
+			if(length < 0) {
+				return -1;
+			}
+			if(length == 0) {
+				return CONFLICT;
+			}
+		}
+		int id = db.addResolvent(literals, length);
+		if(id >= 0) {
+			enqueue(id);
+		}
+		return id;
+	}
+
+
+	// Records the derivation of clause, stored under id, from the
+	// resolvent of parent and partner, simplified by the units that made
+	// the other literals of resolvent false.
+	private void record(int id, int[] clause, int[] resolvent, int parent, int partner)
+	{
+		int[] parentClause = db.getClause(parent);
+		int pivot = 0;
+		for(int i = 0; partner != NO_PARTNER && pivot == 0; i++) {
+			if(ClauseDatabase.clauseContainsLiteral(db.getClause(partner), -parentClause[i])) {
+				pivot = parentClause[i];
+			}
+		}
+		proof.addStep(id, clause, pivot);
+		if(clause != resolvent) {
+			for(int i = 0; i < resolvent.length; i++) {
+				int inverse = ClauseDatabase.index(-resolvent[i]);
+				if(assigned[inverse]) {
+					proof.addHint(unitOf[inverse]);
+				}
+			}
+		}
+		proof.addHint(parent);
+		if(partner != NO_PARTNER) {
+			proof.addHint(partner);
+		}
+	}
+
+
+	// Propagates the pending units.  Every live clause holding the literal
+	// of a unit is retired, and every one holding its inverse is replaced
+	// by its simplified form.  Returns true when a clause is falsified,
+	// or when an empty clause is pending.
+	protected boolean propagate()
+	{
+		for(int k = 0; k < pendingUnits.size(); k++) {
+			int unit = pendingUnits.get(k);
+			if(db.isRetired(unit)) {
+				continue;
+			}
+			if(db.getClause(unit).length == 0) {
+				return true;
+			}
+			int literal = db.getClause(unit)[0];
+			if(assigned[ClauseDatabase.index(-literal)]) {
+				if(proof != null) {
+					int[] empty = new int[0];
+					record(db.size(), empty, empty, unit, unitOf[ClauseDatabase.index(-literal)]);
+				}
+				return true;
+			}
+			assigned[ClauseDatabase.index(literal)] = true;
+			if(unitOf != null) {
+				unitOf[ClauseDatabase.index(literal)] = unit;
+			}
+			propagated.add(unit);
+			for(int j = 0; j < db.getOccurrenceCount(literal); j++) {
+				int other = db.getOccurrence(literal, j);
+				if(other != unit) {
+					db.retire(other);
+				}
+			}
+			for(int j = 0; j < db.getOccurrenceCount(-literal); j++) {
+				int other = db.getOccurrence(-literal, j);
+				if(!db.isRetired(other)) {
+					db.retire(other);
+					if(addResolvent(db.getClause(other), other, NO_PARTNER) == CONFLICT) {
+						return true;
+					}
+				}
+			}
+		}
+		pendingUnits.clear();
+		growProcessedAt();
+		return false;
+	}
+
+
+	// Drops the literals of clause that propagated units made false.
+	// Returns null when a unit made the clause true.
+	private int[] simplify(int[] clause)
+	{
+		int length = 0;
+		int[] simplified = new int[clause.length];
+		for(int i = 0; i < clause.length; i++) {
+			int index = ClauseDatabase.index(clause[i]);
+			if(assigned[index]) {
+				return null;
+			}
+			if(!assigned[index ^ 1]) {
+				simplified[length++] = clause[i];
+			}
+		}
+		return length == clause.length ? clause : Arrays.copyOf(simplified, length);
+	}
+
+
+	// Like simplify(), in place on the first length literals of clause.
+	// Returns the new length, or -1 when a unit made the clause true.
+	private int simplify(int[] clause, int length)
+	{
+		int kept = 0;
+		for(int i = 0; i < length; i++) {
+			int index = ClauseDatabase.index(clause[i]);
+			if(assigned[index]) {
+				return -1;
+			}
+			if(!assigned[index ^ 1]) {
+				clause[kept++] = clause[i];
+			}
+		}
+		return kept;
+	}
+
+
+	// Makes room for atoms added to the database after start()
+	private void growAssigned()
+	{
+		if(assigned.length < 2 * db.getAtomCount()) {
+			assigned = Arrays.copyOf(assigned, 2 * db.getAtomCount());
+			if(unitOf != null) {
+				unitOf = Arrays.copyOf(unitOf, assigned.length);
+			}
+		}
+	}
+
+
+	private void growProcessedAt()
+	{
+		if(db.size() > processedAt.length) {
+			int length = processedAt.length;
+			processedAt = Arrays.copyOf(processedAt, 2 * db.size());
+			Arrays.fill(processedAt, length, processedAt.length, NEVER);
+		}
+	}
+}
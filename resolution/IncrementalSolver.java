@@ -0,0 +1,133 @@
+package resolution;
+
+import processing.data.XML;
+
+// Answers many entailment queries against one knowledge base.  The base
+// is converted to CNF once and saturated by the given-clause loop, with
+// unit propagation since assumptions and queries are mostly units and
+// with strict resolution, and its resolvents and the loop's state are
+// kept between queries.  A query
+// adds its assumptions and its negated conclusion as new clauses, which
+// are only resolved against each other and the saturated base, and then
+// the database and the loop are rolled back, so every query starts from
+// the same saturated base.  Formulas added to the base between queries
+// are saturated against it before the next query.
+public class IncrementalSolver
+{
+	private FormulaFactory factory;
+	private ClauseDatabase db;
+	private CnfConverter converter;
+	private GivenClauseResolution engine;
+	private int queued;				// clauses with lower ids have been queued
+	private boolean inconsistent;	// the base alone has a conflict
+
+	public IncrementalSolver()
+	{
+		factory = new FormulaFactory();
+		db = new ClauseDatabase();
+		converter = new CnfConverter(db);
+		engine = new GivenClauseResolution(true, true);
+		engine.start(db);
+		queued = 0;
+		inconsistent = false;
+	}
+
+
+	public FormulaFactory getFactory() { return factory; }
+	public ClauseDatabase getDatabase() { return db; }
+
+
+	// Adds every statement of the logic, one per line, to the base.
+	public void addFormula(String logic)
+	{
+		XML[] statements = LogicParser.toXML(logic).getChildren();
+		for(int i = 0; i < statements.length; i++) {
+			addFormula(factory.fromXML(statements[i]));
+		}
+	}
+
+
+	// Adds a formula made by getFactory() to the base.
+	public void addFormula(Formula formula)
+	{
+		converter.assertFormula(formula);
+	}
+
+
+	// Returns false when the base has a conflict.
+	public boolean isConsistent()
+	{
+		return !saturateBase();
+	}
+
+
+	// Returns true when the base and the assumptions together entail the
+	// query: resolution finds a conflict once the negated query is added.
+	// Each argument may hold several statements, which are and-ed.
+	public boolean entails(String query, String... assumptions)
+	{
+		Formula[] formulas = new Formula[assumptions.length];
+		for(int i = 0; i < assumptions.length; i++) {
+			formulas[i] = parse(assumptions[i]);
+		}
+		return entails(parse(query), formulas);
+	}
+
+
+	public boolean entails(Formula query, Formula... assumptions)
+	{
+		if(saturateBase()) {
+			return true;
+		}
+		int size = db.size();
+		int retirements = db.getRetirementCount();
+		for(int i = 0; i < assumptions.length; i++) {
+			converter.assertFormula(assumptions[i]);
+		}
+		converter.assertFormula(factory.not(query));
+		boolean conflict = admit(size) || engine.saturate();
+		engine.rollback(size);
+		db.truncate(size, retirements);
+		return conflict;
+	}
+
+
+	// Queues the clauses added to the base since the last query and
+	// saturates it.  Returns true when the base has a conflict.
+	private boolean saturateBase()
+	{
+		if(!inconsistent) {
+			inconsistent = admit(queued) || engine.saturate();
+			queued = db.size();
+		}
+		return inconsistent;
+	}
+
+
+	// Hands the clauses from first up to the current size to the loop.
+	// Returns true when one of them is falsified by the units.
+	private boolean admit(int first)
+	{
+		int last = db.size();
+		for(int id = first; id < last; id++) {
+			if(engine.admit(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private Formula parse(String logic)
+	{
+		XML[] statements = LogicParser.toXML(logic).getChildren();
+		if(statements.length == 0) {
+			throw new IllegalArgumentException("No formula in '" + logic + "'");
+		}
+		Formula formula = factory.fromXML(statements[0]);
+		for(int i = 1; i < statements.length; i++) {
+			formula = factory.and(formula, factory.fromXML(statements[i]));
+		}
+		return formula;
+	}
+}
@@ -0,0 +1,60 @@
+package resolution;
+
+import java.util.Arrays;
+
+// A growable list of primitive ints, used for clause id lists that
+// would otherwise box every entry.
+class IntList
+{
+	private int[] values;
+	private int size;
+
+	IntList()
+	{
+		values = new int[4];
+		size = 0;
+	}
+
+	int get(int i) { return values[i]; }
+	void set(int i, int value) { values[i] = value; }
+	int size() { return size; }
+	boolean isEmpty() { return size == 0; }
+	void clear() { size = 0; }
+	void shrink(int newSize) { size = newSize; }
+
+	void add(int value)
+	{
+		if(size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	// Removes the entry at i by moving the last entry into its place.
+	void swapRemove(int i)
+	{
+		values[i] = values[--size];
+	}
+
+	int[] toArray()
+	{
+		return Arrays.copyOf(values, size);
+	}
+
+	void sort()
+	{
+		Arrays.sort(values, 0, size);
+	}
+
+	// Removes repeated entries from a sorted list
+	void removeAdjacentDuplicates()
+	{
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(kept == 0 || values[kept-1] != values[i]) {
+				values[kept++] = values[i];
+			}
+		}
+		size = kept;
+	}
+}
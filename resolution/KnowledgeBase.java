@@ -0,0 +1,170 @@
+package resolution;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import processing.data.XML;
+
+// Decides whether a knowledge base entails a query.  Every statement of
+// the logic but the last, one per line, is an axiom and the last is the
+// query.  Each axiom is converted to CNF on its own, the negated query is
+// added, and a conflict in the merged clause set shows the entailment.
+// Since no axiom is ever conjoined with another before conversion, an
+// or-node in one axiom is never distributed over the clauses of the rest.
+//
+// Given a pool, the axioms are split into groups that are converted in
+// parallel, each into a ClauseDatabase of its own, and the groups are
+// merged in order on the calling thread, with atoms matched by name and
+// duplicate clauses dropped.  The merged set holds the same clauses as
+// a sequential conversion.  The statements are turned into Formulas
+// first, on one thread, as neither the XML nor the factory can be shared.
+//
+// A conflict only shows entailment when every clause the strategy derives
+// follows from the clauses it was given.  resolve() drops every pair of
+// inverse literals at once, which does not, so only strict resolution,
+// CDCL, and a Preprocessor wrapped around either are accepted.
+public class KnowledgeBase
+{
+	// Groups for each thread of the pool, so an uneven group costs little
+	private static final int GROUPS_PER_THREAD = 4;
+
+	private FormulaFactory factory;
+	private Formula[] axioms;
+	private Formula query;
+
+	public KnowledgeBase(XML logic)
+	{
+		XML[] statements = logic.getChildren();
+		if(statements.length == 0) {
+			throw new IllegalArgumentException("No query in the knowledge base");
+		}
+		factory = new FormulaFactory();
+		axioms = new Formula[statements.length - 1];
+		for(int i = 0; i < axioms.length; i++) {
+			axioms[i] = factory.fromXML(statements[i]);
+		}
+		query = factory.fromXML(statements[statements.length - 1]);
+	}
+
+
+	public int getAxiomCount() { return axioms.length; }
+	public Formula getAxiom(int i) { return axioms[i]; }
+	public Formula getQuery() { return query; }
+
+
+	// Returns true when resolution finds a conflict in the axioms and the
+	// negated query.
+	public boolean entails(ResolutionStrategy strategy)
+	{
+		return entails(strategy, null, null) == Outcome.CONFLICT;
+	}
+
+
+	// Like entails(), converting in pool when it is not null and with
+	// resolution bounded by budget when it is not null.
+	public Outcome entails(ResolutionStrategy strategy, ForkJoinPool pool, Budget budget)
+	{
+		if(!isSound(strategy)) {
+			throw new IllegalArgumentException("Entailment needs strict resolution or CDCL");
+		}
+		ClauseDatabase db = toClauses(pool);
+		db.setBudget(budget);
+		boolean conflict = strategy.findConflict(db);
+		if(budget == null) {
+			return conflict ? Outcome.CONFLICT : Outcome.NO_CONFLICT;
+		}
+		return budget.outcome(conflict);
+	}
+
+
+	// Returns true when strategy only derives clauses that follow from
+	// those it is given
+	public static boolean isSound(ResolutionStrategy strategy)
+	{
+		if(strategy instanceof Preprocessor) {
+			return isSound(((Preprocessor)strategy).getStrategy());
+		}
+		if(strategy instanceof GivenClauseResolution) {
+			return ((GivenClauseResolution)strategy).isStrict();
+		}
+		return strategy instanceof CdclSolver;
+	}
+
+
+	// Returns the clauses of the axioms followed by those of the negated
+	// query.  The axioms are converted in pool unless it is null.
+	public ClauseDatabase toClauses(ForkJoinPool pool)
+	{
+		ClauseDatabase db = new ClauseDatabase();
+		int groups = pool == null ? 1 : Math.min(axioms.length, pool.getParallelism() * GROUPS_PER_THREAD);
+		if(groups <= 1) {
+			CnfConverter converter = new CnfConverter(db);
+			for(int i = 0; i < axioms.length; i++) {
+				converter.assertFormula(axioms[i]);
+			}
+		}
+		else {
+			ArrayList<ForkJoinTask<ClauseDatabase>> tasks = new ArrayList<ForkJoinTask<ClauseDatabase>>();
+			for(int g = 0; g < groups; g++) {
+				int first = (int)((long)axioms.length * g / groups);
+				int last = (int)((long)axioms.length * (g + 1) / groups);
+				tasks.add(pool.submit(new Conversion(first, last)));
+			}
+			for(int g = 0; g < groups; g++) {
+				merge(tasks.get(g).join(), db);
+			}
+		}
+		new CnfConverter(db).assertFormula(factory.not(query));
+		return db;
+	}
+
+
+	// Converts the axioms from first up to last into a database of their own
+	private class Conversion extends RecursiveTask<ClauseDatabase>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int first;
+		private int last;
+
+		Conversion(int first, int last)
+		{
+			this.first = first;
+			this.last = last;
+		}
+
+		protected ClauseDatabase compute()
+		{
+			ClauseDatabase group = new ClauseDatabase();
+			CnfConverter converter = new CnfConverter(group);
+			for(int i = first; i < last; i++) {
+				converter.assertFormula(axioms[i]);
+			}
+			return group;
+		}
+	}
+
+
+	// Adds the clauses of group to db that it does not hold yet
+	private static void merge(ClauseDatabase group, ClauseDatabase db)
+	{
+		int[] atoms = new int[group.getAtomCount()];
+		for(int atom = 0; atom < atoms.length; atom++) {
+			atoms[atom] = db.internAtom(group.getAtomName(atom));
+		}
+		for(int id = 0; id < group.size(); id++) {
+			int[] clause = group.getClause(id);
+			int[] mapped = new int[clause.length];
+			for(int i = 0; i < clause.length; i++) {
+				int atom = atoms[ClauseDatabase.atomOf(clause[i])];
+				mapped[i] = ClauseDatabase.literal(atom, ClauseDatabase.isNegated(clause[i]));
+			}
+			mapped = ClauseDatabase.normalize(mapped);
+			if(!db.containsClause(mapped)) {
+				db.addClause(mapped);
+			}
+		}
+	}
+}
@@ -0,0 +1,679 @@
+package resolution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import processing.data.XML;
+
+// The CNF conversion and resolution steps, working on an XML logic tree
+// as produced by LogicParser.  Every step rewrites the tree in place.
+// Nothing here depends on Processing's drawing, so batch tools can run
+// the steps without a window; Resolution wraps it to draw the tree.
+//
+// With a ResolutionListener attached, every public step reports its time
+// and the size of the tree before and after it, and the clause databases
+// the steps create report to the same listener.
+public class LogicPipeline
+{
+	private XML tree;
+	private ResolutionStrategy strategy = new AllPairsResolution();
+	private ResolutionListener listener;	// null when nothing listens
+	private ProofRecorder proof;	// null when no proof is recorded
+	private long stageStart;
+	private int nodesBefore;
+	private int[] marks = new int[16];	// by literal index, for collapse()
+	private int mark = 1;
+	
+	public LogicPipeline(XML tree) 
+	{ 
+		this.tree = tree; 
+	}
+	
+	
+	public XML getTree()
+	{
+		return tree;
+	}
+	
+	
+	public void setListener(ResolutionListener listener)
+	{
+		this.listener = listener;
+	}
+	
+	
+	// Records the derivations of applyResolution() in proof, whose input
+	// clauses are then the clauses of the collapsed set in order.
+	public void setProof(ProofRecorder proof)
+	{
+		this.proof = proof;
+	}
+		
+	
+	// Replaces all biconditions with truth preserving conjunctions of conditions. 
+	public void eliminateBiconditions()
+	{
+		startStage();
+		eliminateBiconditionsRecursive(tree);
+		finishStage("eliminateBiconditions");
+	}	
+	
+	
+	// Recursively searches through the logic tree to replace and biconditionals
+	// with truth preserving conjunctions of conditions.
+	private void eliminateBiconditionsRecursive(XML node)
+	{
+		XML[] children = node.getChildren();
+		// Search for a biconditional child
+		// Base case: leaf node (no children)
+		for(int i = 0; i < children.length; i++) {
+			XML curr = children[i];
+			// Recurse down tree
+			eliminateBiconditionsRecursive(curr);
+			// Replace bicondition with conjunction of conditions
+			if(curr.getName().equals("bicondition")) {
+				// curr = A<=>B will become (A=>B)&&(B=>A) //
+				// Create truth preserving conditions:
+				XML left = new XML("condition");
+				XML right = new XML("condition");
+				// Left = A=>B
+				left.addChild(curr.getChild(0));
+				left.addChild(curr.getChild(1));
+				// Right = B=>A
+				right.addChild(curr.getChild(1));
+				right.addChild(curr.getChild(0));
+				// Change original bicondition to (left&&right)
+				curr.removeChild(curr.getChild(1));
+				curr.removeChild(curr.getChild(0));
+				curr.addChild(left);
+				curr.addChild(right);
+				// Change node from 'bicondition' to 'and'
+				curr.setName("and");
+			}
+		}
+	}
+	
+	
+	// Replace all conditions with truth preserving disjunctions.
+	public void eliminateConditions()
+	{
+		startStage();
+		eliminateConditionsRecursive(tree);
+		finishStage("eliminateConditions");
+	}
+	
+	
+	// Recursively replace conditions with truth preserving disjunctions
+	private void eliminateConditionsRecursive(XML node)
+	{
+		XML[] children = node.getChildren();
+		// Search for conditions
+		// Base Case: leaf node (no children)
+		for(int i = 0; i < children.length; i++) {
+			XML curr = children[i];
+			// Recurse
+			eliminateConditionsRecursive(curr);
+			// Replace condition with truth preserving disjunction
+			if(curr.getName().equals("condition")) {
+				// curr = A=>B will become (!A||B) //
+				// Replace A with (!A)
+				XML not = new XML("not");
+				not.addChild(curr.getChild(0));
+				curr.addChild(not);
+				curr.removeChild(curr.getChild(0));
+				// Change the node from 'condition' to 'or'
+				curr.setName("or");
+			}
+		}
+	}
+	
+	
+	// Move negations in a truth preserving way to apply only to literals.
+	public void moveNegationInwards()
+	{
+		startStage();
+		moveNegationInwardsRecursive(tree);
+		finishStage("moveNegationInwards");
+	}
+	
+	
+	// Recursively move negations in a truth preserving way to apply only to literals
+	private void moveNegationInwardsRecursive(XML node)
+	{
+		XML[] children = node.getChildren();
+		boolean child_change = false;
+		boolean any_child_changed = false;
+		// Travel down tree searching for not's
+		for(int i = 0; i < children.length; i++) {
+			XML curr = children[i];
+			any_child_changed = false;
+			// Locate a not node
+			if(curr.getName().equals("not")) {
+				child_change = false;
+				// Keep any easy access variable to not's child
+				XML not_child = curr.getChild(0); 
+				// Double negative found:
+				if(not_child.getName().equals("not")) {
+					// curr = !!A will become A
+					node.addChild(not_child.getChild(0));
+					// Return formatting for looping
+					if(i == 0) {
+						node.addChild(node.getChild(1));
+						node.removeChild(node.getChild(1));
+					}
+					node.removeChild(node.getChild(i));
+					child_change = true;
+				}
+				// DeMorgan's Law:
+				else if(not_child.getName().equals("and")||not_child.getName().equals("or")){
+					// curr = !(A||B) or !(A&&B) will become (!A&&!B) or (!A||!B)
+					XML not1 = new XML("not");
+					XML not2 = new XML("not");
+					// Convert A and B to !A and !B
+					not1.addChild(not_child.getChild(0));
+					not2.addChild(not_child.getChild(1));
+					not_child.removeChild(not_child.getChild(0));
+					not_child.removeChild(not_child.getChild(0));
+					not_child.addChild(not1);
+					not_child.addChild(not2);
+					// DeMorgans law change
+					if(not_child.getName().equals("and")) {
+						not_child.setName("or");
+					}
+					else if(not_child.getName().equals("or")) {
+						not_child.setName("and");
+					}
+					// Remove the not from the tree
+					node.addChild(not_child);
+					// Return formatting for looping
+					if(i == 0) {
+						node.addChild(node.getChild(1));
+						node.removeChild(node.getChild(1));
+					}
+					node.removeChild(node.getChild(i));
+					child_change = true;
+				}
+				// Recurse if child changed
+				if(child_change) {
+					any_child_changed = true;
+					moveNegationInwardsRecursive(node);
+				}
+			}
+			// Recurse if nothing changed (avoids recursing on a node twice)
+			if(!any_child_changed){
+				moveNegationInwardsRecursive(curr);
+			}
+		}
+	}
+	
+	
+	// Move negations in a truth preserving way to apply only to literals.
+	public void distributeOrsOverAnds()
+	{
+		startStage();
+		distributeOrsoverAndsRecursive(tree);
+		finishStage("distributeOrsOverAnds");
+	}
+	
+	
+	// Recursively move negations in a truth preserving way to apply only to literals
+	private void distributeOrsoverAndsRecursive(XML tree)
+	{
+		XML[] children = tree.getChildren();
+		boolean change_happened = false;
+		boolean any_change_happened = false;
+		// Travel down tree searching for or's
+		for(int i = 0; i < children.length; i++) {
+			XML curr = children[i];
+			if(curr.getName().equals("or")) {
+				change_happened = false;
+				XML left = curr.getChild(0);
+				XML right = curr.getChild(1);
+				if(left.getName().equals("and")) {
+					// curr = (X&&Y)||Z will become (X||Z)&&(Y||Z)
+					XML or1 = new XML("or");
+					XML or2 = new XML("or");
+					or1.addChild(left.getChild(0));
+					or1.addChild(right);
+					or2.addChild(left.getChild(1));
+					or2.addChild(right);
+					curr.removeChild(left);
+					curr.removeChild(right);
+					curr.addChild(or1);
+					curr.addChild(or2);
+					curr.setName("and");
+					change_happened = true;
+				}
+				// Update left and right in case or has two and children
+				left = curr.getChild(0);
+				right = curr.getChild(1);
+				if(right.getName().equals("and")) {
+					// curr = X||(Y&&Z) will become (X||Y)&&(X||Z)
+					XML or1 = new XML("or");
+					XML or2 = new XML("or");
+					or1.addChild(left);
+					or1.addChild(right.getChild(0));
+					or2.addChild(left);
+					or2.addChild(right.getChild(1));
+					curr.removeChild(left);
+					curr.removeChild(right);
+					curr.addChild(or1);
+					curr.addChild(or2);
+					curr.setName("and");
+					change_happened = true;
+				}
+				// Recurse on same node if any change happened
+				if(change_happened) {
+					any_change_happened = true;
+					distributeOrsoverAndsRecursive(tree);
+				}
+			}
+			// Recurse on child if nothing changed
+			if(!any_change_happened) {
+				distributeOrsoverAndsRecursive(curr);
+			}
+		}
+	}
+		
+	
+	// Does the work of steps 1-5 (eliminating biconditions and conditions,
+	// moving negations inwards, distributing and collapsing) in a single
+	// traversal, replacing the logic with the equivalent collapsed set.
+	// The separate steps are kept for stepping through the conversion.
+	public void convertToCnf()
+	{
+		startStage();
+		ClauseDatabase db = new ClauseDatabase();
+		db.setListener(listener);
+		new CnfConverter(db).assertFormula(new FormulaFactory().fromXML(tree.getChild(0)));
+		tree.removeChild(tree.getChild(0));
+		tree.addChild(db.toXML());
+		finishStage("convertToCnf");
+	}
+		
+	
+	// An alternative to steps 1-5 (eliminating biconditions and conditions,
+	// moving negations inwards, distributing and collapsing) that replaces
+	// the logic with an equisatisfiable collapsed set whose size is linear
+	// in the size of the logic.  Compound subformulas are named by fresh
+	// auxiliary atoms; with polarityAware set they are only defined in
+	// the direction their occurrences need (Plaisted-Greenbaum).
+	public void convertToDefinitionalCnf(boolean polarityAware)
+	{
+		startStage();
+		ClauseDatabase db = new ClauseDatabase();
+		db.setListener(listener);
+		new DefinitionalCnf(db, polarityAware).assertFormula(new FormulaFactory().fromXML(tree.getChild(0)));
+		tree.removeChild(tree.getChild(0));
+		tree.addChild(db.toXML());
+		finishStage("convertToDefinitionalCnf");
+	}
+		
+	
+	// Treats every statement in tree but the last as an axiom and the last
+	// as a query, and replaces them all with one collapsed set: the CNF of
+	// each axiom, converted on its own, and of the negated query.  A
+	// conflict found by applyResolution() then shows that the axioms
+	// entail the query.  See KnowledgeBase.
+	public void convertKnowledgeBase()
+	{
+		startStage();
+		ClauseDatabase db = new KnowledgeBase(tree).toClauses(null);
+		while(tree.getChildCount() > 0) {
+			tree.removeChild(tree.getChild(0));
+		}
+		tree.addChild(db.toXML());
+		finishStage("convertKnowledgeBase");
+	}
+		
+	
+	// Cleans up logic in tree in preparation for Resolution:
+	// 1) Converts nested binary ands and ors into n-ary operators so
+	// there is a single and-node child of the root logic-node, all of
+	// the children of this and-node are or-nodes, and all of the
+	// children of these or-nodes are literals: either atomic or negated	
+	// 2) Removes redundant literals from every clause, and then remove
+	// redundant clauses from the tree.
+	// 3) Removes any clauses that are always true (tautologies)
+	// from the tree to help speed up resolution.
+	// The set is worked out in one pass over the tree, with literals and
+	// clauses deduplicated by hashing, and written out once, so the time
+	// taken is linear in the size of the tree.
+	public void collapse()
+	{
+		startStage();
+		
+		XML top = tree.getChild(0);
+		ArrayList<XML[]> clauses = guaranteeFormat(top);
+		
+		ClauseDatabase index = new ClauseDatabase();
+		int[][] encoded = new int[clauses.size()][];
+		for(int i = 0; i < clauses.size(); i++) {
+			encoded[i] = removeRedundantLiterals(clauses.get(i), index);
+		}
+		boolean[] kept = removeRedundancy(encoded, index);
+		removeTautologies(encoded, kept);
+		
+		// Write the set in place of the logic
+		XML set;
+		if(top.getName().equals("and")) {
+			XML[] children = top.getChildren();
+			for(int i = 0; i < children.length; i++) {
+				top.removeChild(children[i]);
+			}
+			set = top;
+		}
+		else {
+			set = tree.addChild("and");
+			tree.removeChild(top);
+		}
+		for(int i = 0; i < clauses.size(); i++) {
+			if(kept[i]) {
+				XML clause = set.addChild("or");
+				XML[] literals = clauses.get(i);
+				for(int j = 0; j < literals.length; j++) {
+					if(literals[j] != null) {
+						copyUnnested(literals[j], clause);
+					}
+				}
+			}
+		}
+		
+		finishStage("collapse");
+	}	
+	
+	
+	// Returns the children node has once nested nodes of its kind, an and
+	// or an or, are merged into it.  Their order is the one given by
+	// merging in passes over the children: each nested node met is
+	// replaced by its children, appended at the end, and the child after
+	// it is skipped until the next pass.  The passes never reorder the
+	// children they keep, so only the order the nested nodes are expanded
+	// in matters.  It is replayed on a linked list of the children,
+	// visiting only the nested nodes: each is visited once, and again if
+	// it was skipped, so the work is linear in the number of children.
+	private static XML[] unnestAndsOrs(XML node)
+	{
+		String kind = node.getName();
+		ArrayList<XML> items = new ArrayList<XML>();
+		IntList next = new IntList();			// following item, -1 for none
+		IntList prev = new IntList();
+		IntList pass = new IntList();			// nested items to visit
+		ArrayList<Boolean> skipped = new ArrayList<Boolean>();
+		int tail = -1;
+		XML[] children = node.getChildren();
+		for(int i = 0; i < children.length; i++) {
+			tail = append(children[i], tail, items, next, prev, skipped, pass, kind);
+		}
+		while(pass.size() > 0) {
+			IntList deferred = new IntList();
+			for(int p = 0; p < pass.size(); p++) {
+				int item = pass.get(p);
+				if(skipped.get(item)) {
+					skipped.set(item, false);
+					deferred.add(item);
+					continue;
+				}
+				XML[] nested = items.get(item).getChildren();
+				for(int i = 0; i < nested.length; i++) {
+					tail = append(nested[i], tail, items, next, prev, skipped, pass, kind);
+				}
+				// Unlink the expanded item; the one after it is skipped
+				int after = next.get(item);
+				int before = prev.get(item);
+				if(before >= 0) {
+					next.set(before, after);
+				}
+				if(after >= 0) {
+					prev.set(after, before);
+					if(items.get(after).getName().equals(kind)) {
+						skipped.set(after, true);
+					}
+				}
+				else {
+					tail = before;
+				}
+			}
+			pass = deferred;
+		}
+		ArrayList<XML> kept = new ArrayList<XML>();
+		for(int i = 0; i < items.size(); i++) {
+			if(!items.get(i).getName().equals(kind)) {
+				kept.add(items.get(i));
+			}
+		}
+		return kept.toArray(new XML[kept.size()]);
+	}
+	
+	
+	// Adds child to the end of the list for unnestAndsOrs() and returns
+	// the new tail.  A child of the kind being merged is queued to visit.
+	private static int append(XML child, int tail, ArrayList<XML> items, IntList next, IntList prev, ArrayList<Boolean> skipped, IntList pass, String kind)
+	{
+		int id = items.size();
+		items.add(child);
+		next.add(-1);
+		prev.add(tail);
+		skipped.add(false);
+		if(tail >= 0) {
+			next.set(tail, id);
+		}
+		if(child.getName().equals(kind)) {
+			pass.add(id);
+		}
+		return id;
+	}
+	
+	
+	// Adds a copy of node to parent, with every and-node and or-node in it
+	// unnested.  Only needed in full for literals that are not simple.
+	private static void copyUnnested(XML node, XML parent)
+	{
+		XML copy = parent.addChild(node.getName());
+		boolean merged = node.getName().equals("and") || node.getName().equals("or");
+		XML[] children = merged ? unnestAndsOrs(node) : node.getChildren();
+		for(int i = 0; i < children.length; i++) {
+			copyUnnested(children[i], copy);
+		}
+	}
+	
+	
+	// Returns the clauses of the set that top becomes, each as its
+	// literals: one and-node with or-node children.  A top that is not an
+	// and-node is a set of one, and a child of the and that is not an
+	// or-node is a clause of one, placed after the or-nodes.
+	private static ArrayList<XML[]> guaranteeFormat(XML top)
+	{
+		XML[] items = top.getName().equals("and") ? unnestAndsOrs(top) : new XML[] { top };
+		ArrayList<XML[]> clauses = new ArrayList<XML[]>();
+		for(int i = 0; i < items.length; i++) {
+			if(items[i].getName().equals("or")) {
+				clauses.add(unnestAndsOrs(items[i]));
+			}
+		}
+		for(int i = 0; i < items.length; i++) {
+			if(!items[i].getName().equals("or")) {
+				clauses.add(new XML[] { items[i] });
+			}
+		}
+		return clauses;
+	}
+	
+	
+	// Clears every literal of clause that repeats an earlier one, and
+	// returns the literals left, interned in index.
+	private int[] removeRedundantLiterals(XML[] clause, ClauseDatabase index)
+	{
+		IntList literals = new IntList();
+		for(int i = 0; i < clause.length; i++) {
+			int atom = index.internAtom(getAtomFromLiteral(clause[i]));
+			int literal = ClauseDatabase.literal(atom, isLiteralNegated(clause[i]));
+			if(marks.length < 2 * index.getAtomCount()) {
+				marks = Arrays.copyOf(marks, Math.max(2 * marks.length, 2 * index.getAtomCount()));
+			}
+			if(marks[ClauseDatabase.index(literal)] == mark) {
+				clause[i] = null;
+			}
+			else {
+				marks[ClauseDatabase.index(literal)] = mark;
+				literals.add(literal);
+			}
+		}
+		mark++;
+		return literals.toArray();
+	}
+	
+	
+	// Returns which clauses to keep once repeats are removed.  Later
+	// copies of a clause are the ones kept.
+	private boolean[] removeRedundancy(int[][] clauses, ClauseDatabase index)
+	{
+		boolean[] kept = new boolean[clauses.length];
+		for(int i = clauses.length - 1; i >= 0; i--) {
+			int[] clause = ClauseDatabase.normalize(clauses[i]);
+			if(index.containsClause(clause)) {
+				if(listener != null) {
+					listener.duplicateRejected();
+				}
+			}
+			else {
+				index.addClause(clause);
+				kept[i] = true;
+			}
+		}
+		return kept;
+	}
+	
+	
+	// Drops any tautologies from the clauses kept
+	private void removeTautologies(int[][] clauses, boolean[] kept)
+	{
+		for(int i = 0; i < clauses.length; i++) {
+			if(kept[i] && ClauseDatabase.isTautology(ClauseDatabase.normalize(clauses[i]))) {
+				kept[i] = false;
+				if(listener != null) {
+					listener.tautologyRemoved();
+				}
+			}
+		}
+	}
+	
+	
+	// Implements resolution on the logic in tree.  New resolvents
+	// are added as children to the only and-node in tree.  This
+	// method returns true when a conflict is found, otherwise it
+	// only returns false after exploring all possible resolvents.
+	// The clauses are copied into an integer-encoded ClauseDatabase
+	// for the search.  Afterwards clauses that were subsumed by a
+	// resolvent are removed and the remaining resolvents are added.
+	public boolean applyResolution()
+	{
+		return applyResolution(null) == Outcome.CONFLICT;
+	}
+	
+	
+	// Like applyResolution(), but the search stops early once budget is
+	// exhausted, and the resolvents found until then are still added.
+	// Returns UNKNOWN when it stopped, or when resolvents were dropped,
+	// without finding a conflict.  A null budget sets no limits.
+	public Outcome applyResolution(Budget budget)
+	{
+		startStage();
+		XML set = tree.getChild(0);
+		ClauseDatabase db = ClauseDatabase.fromXML(set);
+		db.setBudget(budget);
+		db.setListener(listener);
+		db.setProof(proof);
+		if(listener != null) {
+			listener.resolutionStarted(db.size());
+		}
+		int originalCount = db.size();
+		boolean conflict = strategy.findConflict(db);
+		db.updateXML(set, originalCount);
+		finishStage("applyResolution");
+		if(budget == null) {
+			return conflict ? Outcome.CONFLICT : Outcome.NO_CONFLICT;
+		}
+		return budget.outcome(conflict);
+	}
+	
+	
+	// Selects the procedure applyResolution() uses to search for a conflict.
+	public void setStrategy(ResolutionStrategy strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	
+	// Notes the time and tree size at the start of a step, when a
+	// listener is attached.
+	private void startStage()
+	{
+		if(listener != null) {
+			nodesBefore = countNodes(tree);
+			stageStart = System.nanoTime();
+		}
+	}
+	
+	
+	private void finishStage(String stage)
+	{
+		if(listener != null) {
+			long nanos = System.nanoTime() - stageStart;
+			listener.stageFinished(stage, nanos, nodesBefore, countNodes(tree));
+		}
+	}
+	
+	
+	// Walks the tree with a stack rather than recursion, as a long chain
+	// of binary operators can be deeper than the call stack allows.
+	private static int countNodes(XML root)
+	{
+		int count = 0;
+		ArrayDeque<XML> stack = new ArrayDeque<XML>();
+		stack.push(root);
+		while(!stack.isEmpty()) {
+			XML node = stack.pop();
+			count++;
+			for(int i = 0; i < node.getChildCount(); i++) {
+				stack.push(node.getChild(i));
+			}
+		}
+		return count;
+	}
+
+	
+	// REQUIRED HELPERS: may be helpful to implement these before collapse(), applyResolution(), and resolve()
+	// Some terminology reminders regarding the following methods:
+	// atom: a single named proposition with no children independent of whether it is negated
+	// literal: either an atom-node containing a name, or a not-node with that atom as a child
+	// clause: an or-node, all the children of which are literals
+	// set: an and-node, all the children of which are clauses (disjunctions)
+		
+
+
+	// Returns true when literal is negated and false otherwise.
+	private boolean isLiteralNegated(XML literal) 
+	{
+		if(literal.getName().equals("not")) {
+			return true;
+		}
+		else if(literal.getParent().getName().equals("not")) {
+			// Implemented for robustness
+			return true;
+		}
+		return false; 
+	}
+
+
+	// Returns the name of the atom in literal as a string.
+	private String getAtomFromLiteral(XML literal)
+	{
+		if(literal.getName().equals("not")) {
+			return literal.getChild(0).getName();
+		}
+		return literal.getName();
+	}
+
+}
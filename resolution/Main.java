@@ -1,5 +1,7 @@
 package resolution;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 import processing.core.PApplet;
@@ -52,9 +54,27 @@ public class Main extends PApplet
 					dtree.collapse(); 
 					break;
 				case '6': 
+					dtree.setStrategy(new AllPairsResolution());
 					status = "Resolution Conflict: " +
 					dtree.applyResolution(); 
 					break;					
+				case '7':
+					status = "Converted to Definitional CNF";
+					dtree.convertToDefinitionalCnf(true); 
+					break;
+				case '8':
+					dtree.setStrategy(new CdclSolver());
+					status = "CDCL Conflict: " +
+					dtree.applyResolution(); 
+					break;
+				case '9':
+					status = "Converted to CNF";
+					dtree.convertToCnf(); 
+					break;
+				case '0':
+					status = "Converted Knowledge Base and Negated Query";
+					dtree.convertKnowledgeBase(); 
+					break;
 				}
 				
 			}
@@ -69,13 +89,31 @@ public class Main extends PApplet
 		text(status,32,32);
 	}
 	
-	public static void main(String[] args) 
+	// Usage: Main [file]
+	// Reads the statements in file, one per line, or asks for a single
+	// statement when no file is given.
+	public static void main(String[] args)
 	{
-		System.out.print("Enter a statement of propositional logic:");
-		Scanner in = new Scanner(System.in);		
-		String logic = in.nextLine();
-		inputXML = LogicParser.toXML(logic);
-		in.close();
+		if(args.length > 0)
+		{
+			try
+			{
+				inputXML = LogicParser.toXML(Paths.get(args[0]));
+			}
+			catch(IOException e)
+			{
+				System.err.println("Cannot read " + args[0] + ": " + e.getMessage());
+				System.exit(1);
+			}
+		}
+		else
+		{
+			System.out.print("Enter a statement of propositional logic:");
+			Scanner in = new Scanner(System.in);		
+			String logic = in.nextLine();
+			inputXML = LogicParser.toXML(logic);
+			in.close();
+		}
 		PApplet.main("resolution.Main");
 	}
 }
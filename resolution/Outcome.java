@@ -0,0 +1,12 @@
+package resolution;
+
+// The verdict of a resolution run under a Budget.  UNKNOWN means the run
+// stopped before it could decide: a limit was reached, the budget was
+// cancelled, or resolvents were dropped for being too long, so that
+// finding no conflict proves nothing.
+public enum Outcome
+{
+	CONFLICT,
+	NO_CONFLICT,
+	UNKNOWN
+}
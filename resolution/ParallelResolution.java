@@ -0,0 +1,224 @@
+package resolution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The given-clause loop with the resolution work spread over a
+// ForkJoinPool.  A batch of clauses is taken from the head of the
+// unprocessed queue, and workers resolve each of them against its
+// partners in parallel, treating earlier clauses of the batch as already
+// processed.  The resolvents are then merged into the database on one
+// thread, in the order the sequential loop would have produced them, with
+// the same duplicate, subsumption and retirement checks.  The verdict and
+// the final clause set therefore match GivenClauseResolution exactly.
+//
+// A worker that derives the empty clause publishes its position in the
+// batch, and the other workers skip every clause after it.  Pairs that
+// were skipped are resolved during the merge if the merge gets past the
+// conflict, which it does only when retirement made the conflict vanish.
+//
+// With units set, a unit derived during the merge must be the next given
+// clause, so the rest of the batch is put back on the queues and a new
+// batch starts from there.
+//
+// Workers resolve into the Resolver of their thread and copy out only
+// what they hand to the merge.  Without units, a resolvent the database
+// already holds is handed over as DUPLICATE instead, as it will still be
+// a duplicate when the merge reaches it.  With units it may not be, since
+// the merge simplifies it first.
+//
+// A proof is recorded during the merge, so with strict set it is the
+// same proof the sequential loop records.
+//
+// The budget is checked between the clauses of the merge.  Workers only
+// check whether it was cancelled, which is safe from any thread, and
+// skip their remaining clauses if so.
+public class ParallelResolution extends GivenClauseResolution
+{
+	private static final int DEFAULT_BATCH_SIZE = 256;
+	// Marks a pair that a worker skipped after a conflict
+	private static final int[] SKIPPED = new int[0];
+	
+	private ForkJoinPool pool;
+	private int batchSize;
+	
+	public ParallelResolution()
+	{
+		this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+	}
+	
+	public ParallelResolution(boolean units, boolean strict)
+	{
+		this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE, units, strict);
+	}
+	
+	public ParallelResolution(ForkJoinPool pool, int batchSize)
+	{
+		this(pool, batchSize, false);
+	}
+	
+	public ParallelResolution(ForkJoinPool pool, int batchSize, boolean units)
+	{
+		this(pool, batchSize, units, false);
+	}
+	
+	public ParallelResolution(ForkJoinPool pool, int batchSize, boolean units, boolean strict)
+	{
+		super(units, strict);
+		this.pool = pool;
+		this.batchSize = batchSize;
+	}
+	
+	
+	public boolean findConflict(ClauseDatabase db)
+	{
+		start(db);
+		if(propagate()) {
+			return true;
+		}
+		while(hasUnprocessed() && !db.isOverBudget()) {
+			int count = Math.min(batchSize, unprocessedCount());
+			int[] batch = new int[count];
+			for(int j = 0; j < count; j++) {
+				batch[j] = nextGiven();
+				// Earlier clauses of the batch count as processed for later ones
+				processedAt[batch[j]] = turn + j;
+			}
+			Batch work = new Batch(batch, turn);
+			pool.invoke(work);
+			for(int j = 0; j < count; j++) {
+				processedAt[batch[j]] = NEVER;
+			}
+			// Merge in sequential order
+			IntList partners = new IntList();
+			for(int j = 0; j < count; j++) {
+				int given = batch[j];
+				if(db.isOverBudget()) {
+					return false;
+				}
+				if(db.isRetired(given)) {
+					turn++;
+					continue;
+				}
+				int[][] resolvents = work.resolvents[j];
+				if(resolvents == null) {
+					// Skipped by the workers
+					collectPartners(given, turn, partners);
+				}
+				else {
+					partners = work.partners[j];
+					for(int i = 0; i < resolvents.length; i++) {
+						if(resolvents[i] == SKIPPED) {
+							resolvents[i] = resolve(db.getClause(partners.get(i)), db.getClause(given));
+						}
+					}
+				}
+				if(resolveGiven(given, partners, resolvents) || propagate()) {
+					return true;
+				}
+				if(!unprocessedUnits.isEmpty() && j + 1 < count) {
+					// A new unit now comes before the rest of the batch,
+					// which goes back to wait its turn
+					for(int k = count - 1; k > j; k--) {
+						requeue(batch[k]);
+					}
+					break;
+				}
+			}
+		}
+		return false;
+	}
+	
+	
+	private boolean isCancelled()
+	{
+		Budget budget = db.getBudget();
+		return budget != null && budget.isCancelled();
+	}
+	
+	
+	// Resolves the clauses of a batch against their partners.  Splits
+	// the batch in halves until each task holds a single clause.  Only
+	// reads the database.
+	private class Batch extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		final int[] batch;
+		final int firstTurn;
+		final IntList[] partners;
+		final int[][][] resolvents;
+		final AtomicInteger firstConflict;
+		final int from, to;
+		
+		Batch(int[] batch, int firstTurn)
+		{
+			this.batch = batch;
+			this.firstTurn = firstTurn;
+			partners = new IntList[batch.length];
+			resolvents = new int[batch.length][][];
+			firstConflict = new AtomicInteger(batch.length);
+			from = 0;
+			to = batch.length;
+		}
+		
+		Batch(Batch parent, int from, int to)
+		{
+			batch = parent.batch;
+			firstTurn = parent.firstTurn;
+			partners = parent.partners;
+			resolvents = parent.resolvents;
+			firstConflict = parent.firstConflict;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute()
+		{
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Batch(this, from, middle), new Batch(this, middle, to));
+				return;
+			}
+			int j = from;
+			if(j > firstConflict.get() || isCancelled()) {
+				return;
+			}
+			int given = batch[j];
+			IntList list = new IntList();
+			collectPartners(given, firstTurn + j, list);
+			int[] givenClause = db.getClause(given);
+			int[][] results = new int[list.size()][];
+			Resolver resolver = Resolver.forThread();
+			for(int i = 0; i < results.length; i++) {
+				if(j > firstConflict.get()) {
+					results[i] = SKIPPED;
+					continue;
+				}
+				int length = resolve(resolver, db.getClause(list.get(i)), givenClause);
+				if(length == Resolver.NONE) {
+					results[i] = null;
+				}
+				else if(!units && length > 0 && db.containsClause(resolver.literals(), length)) {
+					results[i] = DUPLICATE;
+				}
+				else {
+					results[i] = resolver.toArray(length);
+				}
+				if(length == 0) {
+					// Conflict found: stop work on every later clause
+					int current;
+					while(j < (current = firstConflict.get()) && !firstConflict.compareAndSet(current, j)) {
+						// retry
+					}
+					for(i++; i < results.length; i++) {
+						results[i] = SKIPPED;
+					}
+				}
+			}
+			partners[j] = list;
+			resolvents[j] = results;
+		}
+	}
+}
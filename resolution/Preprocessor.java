@@ -0,0 +1,298 @@
+package resolution;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Simplifies a clause set before another strategy searches it, in the
+// manner of SatELite.  Tautologies are removed first, and then three
+// rules are applied until none changes the set:
+//
+// - A clause subsumed by another is removed, and a clause that another
+//   subsumes once one of its literals is flipped loses that literal
+//   (self-subsuming resolution).
+// - Every clause holding a pure literal, one whose inverse occurs in no
+//   clause, is removed.
+// - A variable is eliminated by replacing the clauses that hold it with
+//   all their non-tautological resolvents on it, when that does not
+//   make more clauses than it removes, beyond the allowed growth.
+//
+// The simplified set has a conflict exactly when the original does, but
+// it is not equivalent to it, which is why this is a strategy to wrap
+// around another rather than a part of collapse().  Removed clauses are
+// retired and new ones added to the database, so the viewer shows the
+// simplified set after resolution.  The simplification is not recorded
+// as proof steps, so a proof cannot be recorded through it.
+public class Preprocessor implements ResolutionStrategy
+{
+	private static final int DEFAULT_MAX_OCCURRENCES = 16;
+	// Returned by subsumption() when clause does not subsume other even
+	// with a literal flipped
+	private static final int NONE = Integer.MIN_VALUE;
+
+	private ResolutionStrategy strategy;
+	private int growth;			// clauses elimination may add beyond those it removes
+	private int maxOccurrences;	// of a variable, in clauses, for it to be eliminated
+	private ClauseDatabase db;
+	private ArrayDeque<Integer> added;	// clauses to check for subsumption
+	private boolean[] queued;			// by clause id
+
+	public Preprocessor(ResolutionStrategy strategy)
+	{
+		this.strategy = strategy;
+		growth = 0;
+		maxOccurrences = DEFAULT_MAX_OCCURRENCES;
+	}
+
+
+	public void setGrowth(int growth) { this.growth = growth; }
+	public void setMaxOccurrences(int maxOccurrences) { this.maxOccurrences = maxOccurrences; }
+	public ResolutionStrategy getStrategy() { return strategy; }
+
+
+	public boolean findConflict(ClauseDatabase db)
+	{
+		return simplify(db) || strategy.findConflict(db);
+	}
+
+
+	// Simplifies the live clauses of db in place.  Returns true when that
+	// derives the empty clause.
+	public boolean simplify(ClauseDatabase db)
+	{
+		if(db.getProof() != null) {
+			throw new IllegalStateException("Preprocessing cannot record a proof");
+		}
+		this.db = db;
+		added = new ArrayDeque<Integer>();
+		queued = new boolean[Math.max(16, db.size())];
+		for(int id = 0; id < db.size(); id++) {
+			if(db.isRetired(id)) {
+				continue;
+			}
+			if(db.getClause(id).length == 0) {
+				return true;
+			}
+			// A tautology would strengthen its partners unsoundly
+			if(ClauseDatabase.isTautology(db.getClause(id))) {
+				db.retire(id);
+				continue;
+			}
+			queue(id);
+		}
+		boolean changed = true;
+		while(changed && !db.isOverBudget()) {
+			int subsumed = subsume();
+			if(subsumed < 0) {
+				return true;
+			}
+			changed = subsumed > 0;
+			changed |= removePureLiterals();
+			for(int atom = 0; atom < db.getAtomCount() && !db.isOverBudget(); atom++) {
+				int result = eliminate(atom);
+				if(result < 0) {
+					return true;
+				}
+				changed |= result > 0;
+			}
+		}
+		return false;
+	}
+
+
+	// Checks every queued clause against the clauses it may subsume or
+	// strengthen.  Returns 1 when any clause was retired or strengthened,
+	// 0 when none was and -1 when strengthening leaves the empty clause.
+	private int subsume()
+	{
+		int result = 0;
+		while(!added.isEmpty()) {
+			int id = added.poll();
+			queued[id] = false;
+			if(db.isRetired(id)) {
+				continue;
+			}
+			int[] clause = db.getClause(id);
+			// Any clause it touches holds the variable of its rarest
+			// literal.  Retired clauses are counted too, to save a scan.
+			int rarest = clause[0];
+			for(int i = 1; i < clause.length; i++) {
+				if(db.getOccurrenceCount(clause[i]) < db.getOccurrenceCount(rarest)) {
+					rarest = clause[i];
+				}
+			}
+			for(int sign = 0; sign < 2 && !db.isRetired(id); sign++) {
+				int literal = sign == 0 ? rarest : -rarest;
+				for(int i = 0; i < db.getOccurrenceCount(literal); i++) {
+					int other = db.getOccurrence(literal, i);
+					if(other == id || db.isRetired(other) || db.getClause(other).length < clause.length) {
+						continue;
+					}
+					int flipped = subsumption(clause, db.getClause(other));
+					if(flipped == 0) {
+						db.retire(other);
+						result = 1;
+					}
+					else if(flipped != NONE) {
+						if(strengthen(other, -flipped)) {
+							return -1;
+						}
+						result = 1;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+
+	// Returns 0 when clause is a subset of other, the one literal of clause
+	// whose inverse other holds when it is a subset but for that literal,
+	// and otherwise NONE.  Both are sorted.
+	private static int subsumption(int[] clause, int[] other)
+	{
+		int flipped = 0;
+		for(int i = 0; i < clause.length; i++) {
+			if(Arrays.binarySearch(other, clause[i]) >= 0) {
+				continue;
+			}
+			if(flipped != 0 || Arrays.binarySearch(other, -clause[i]) < 0) {
+				return NONE;
+			}
+			flipped = clause[i];
+		}
+		return flipped;
+	}
+
+
+	// Replaces clause id by a copy without literal.  Returns true when the
+	// copy is empty.
+	private boolean strengthen(int id, int literal)
+	{
+		int[] clause = db.getClause(id);
+		int[] strengthened = new int[clause.length - 1];
+		int length = 0;
+		for(int i = 0; i < clause.length; i++) {
+			if(clause[i] != literal) {
+				strengthened[length++] = clause[i];
+			}
+		}
+		db.retire(id);
+		return add(strengthened);
+	}
+
+
+	// Retires every live clause holding a literal whose inverse occurs
+	// in none.  Returns true when any was retired.
+	private boolean removePureLiterals()
+	{
+		boolean changed = false;
+		boolean found = true;
+		while(found) {
+			found = false;
+			for(int atom = 0; atom < db.getAtomCount(); atom++) {
+				int positive = ClauseDatabase.literal(atom, false);
+				int pos = occurrences(positive);
+				int neg = occurrences(-positive);
+				if((pos == 0) != (neg == 0)) {
+					retireAll(pos > 0 ? positive : -positive);
+					found = true;
+					changed = true;
+				}
+			}
+		}
+		return changed;
+	}
+
+
+	// Eliminates atom if that does not add too many clauses.  Returns 1
+	// when it was eliminated, 0 when it was not and -1 when a resolvent is
+	// the empty clause.
+	private int eliminate(int atom)
+	{
+		int positive = ClauseDatabase.literal(atom, false);
+		int pos = occurrences(positive);
+		int neg = occurrences(-positive);
+		if(pos == 0 || neg == 0 || pos + neg > maxOccurrences) {
+			return 0;
+		}
+		int[][] resolvents = new int[pos * neg][];
+		int count = 0;
+		for(int i = 0; i < db.getOccurrenceCount(positive); i++) {
+			int p = db.getOccurrence(positive, i);
+			if(db.isRetired(p)) {
+				continue;
+			}
+			for(int j = 0; j < db.getOccurrenceCount(-positive); j++) {
+				int n = db.getOccurrence(-positive, j);
+				if(db.isRetired(n)) {
+					continue;
+				}
+				// Only resolving on atom can leave a non-tautology
+				int[] resolvent = ClauseDatabase.resolveStrictly(db.getClause(p), db.getClause(n));
+				if(resolvent != null) {
+					if(count == pos + neg + growth) {
+						return 0;
+					}
+					resolvents[count++] = resolvent;
+				}
+			}
+		}
+		retireAll(positive);
+		retireAll(-positive);
+		for(int i = 0; i < count; i++) {
+			if(add(resolvents[i])) {
+				return -1;
+			}
+		}
+		return 1;
+	}
+
+
+	// The number of live clauses holding literal
+	private int occurrences(int literal)
+	{
+		int count = 0;
+		for(int i = 0; i < db.getOccurrenceCount(literal); i++) {
+			if(!db.isRetired(db.getOccurrence(literal, i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	private void retireAll(int literal)
+	{
+		for(int i = 0; i < db.getOccurrenceCount(literal); i++) {
+			db.retire(db.getOccurrence(literal, i));
+		}
+	}
+
+
+	// Adds a sorted clause unless a live clause subsumes it, and queues it
+	// to check the clauses it subsumes.  Returns true when it is the empty
+	// clause.  Only live clauses may stand in for it: a retired clause
+	// may have gone with an eliminated variable.
+	private boolean add(int[] clause)
+	{
+		if(clause.length == 0) {
+			return true;
+		}
+		if(!db.isSubsumed(clause)) {
+			queue(db.addClause(clause));
+		}
+		return false;
+	}
+
+
+	private void queue(int id)
+	{
+		if(id >= queued.length) {
+			queued = Arrays.copyOf(queued, 2 * id);
+		}
+		if(!queued[id]) {
+			queued[id] = true;
+			added.add(id);
+		}
+	}
+}
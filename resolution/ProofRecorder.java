@@ -0,0 +1,164 @@
+package resolution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+// Records how resolution derived each clause, so a conflict can be
+// audited as a refutation proof.  Attach one to a ClauseDatabase with
+// setProof(), or to a LogicPipeline, before running
+// GivenClauseResolution or ParallelResolution with strict set; the other
+// strategies, and resolve() itself, do not make single resolution steps
+// and refuse to run with a recorder attached.
+//
+// A step is the id of the derived clause, its literals, shared with the
+// database, the pivot literal it was resolved on (0 for a clause that
+// only lost literals made false by units), and its hints: the clauses it
+// was derived from, as LRAT wants them, with the units first and the
+// parent holding the pivot before the other.  The last step of a
+// refutation derives the empty clause.
+//
+// Ids and literals follow the DIMACS convention the database already
+// uses for literals: clause k is clause k-1 of the database, literal +k
+// or -k is atom k-1 or its negation, and the empty clause gets the id
+// after the last clause of the database.  The input clauses of a proof
+// file are therefore the database's first clauses in id order.
+public class ProofRecorder
+{
+	private IntList ids;
+	private ArrayList<int[]> clauses;
+	private IntList pivots;
+	private IntList hintStarts;	// index in hints of each step's first hint
+	private IntList hints;
+	private boolean refutation;	// the last step derives the empty clause
+
+	public ProofRecorder()
+	{
+		ids = new IntList();
+		clauses = new ArrayList<int[]>();
+		pivots = new IntList();
+		hintStarts = new IntList();
+		hints = new IntList();
+		refutation = false;
+	}
+
+
+	public int getStepCount() { return ids.size(); }
+	public int getId(int step) { return ids.get(step); }
+	public int[] getClause(int step) { return clauses.get(step); }
+	public int getPivot(int step) { return pivots.get(step); }
+	public int getHint(int step, int i) { return hints.get(hintStarts.get(step) + i); }
+	public boolean isRefutation() { return refutation; }
+
+
+	public int getHintCount(int step)
+	{
+		int end = step + 1 < hintStarts.size() ? hintStarts.get(step + 1) : hints.size();
+		return end - hintStarts.get(step);
+	}
+
+
+	// Starts a step deriving clause, which is stored in the database under
+	// id, or is the empty clause.  Its hints follow with addHint().
+	void addStep(int id, int[] clause, int pivot)
+	{
+		ids.add(id + 1);
+		clauses.add(clause);
+		pivots.add(pivot);
+		hintStarts.add(hints.size());
+		refutation = clause.length == 0;
+	}
+
+
+	// Adds the clause with database id id to the hints of the last step
+	void addHint(int id)
+	{
+		hints.add(id + 1);
+	}
+
+
+	// Returns the steps that the refutation depends on, in their order,
+	// as a new recorder.  Returns every step when there is no refutation.
+	public ProofRecorder trim()
+	{
+		int count = ids.size();
+		if(!refutation) {
+			return copy(null);
+		}
+		int maxId = 0;
+		for(int i = 0; i < count; i++) {
+			maxId = Math.max(maxId, ids.get(i));
+		}
+		int[] stepOf = new int[maxId + 1];	// step + 1 by id, 0 for inputs
+		for(int i = 0; i < count; i++) {
+			stepOf[ids.get(i)] = i + 1;
+		}
+		boolean[] needed = new boolean[count];
+		needed[count - 1] = true;
+		// Hints always name earlier clauses, so one backward pass will do
+		for(int step = count - 1; step >= 0; step--) {
+			if(needed[step]) {
+				for(int i = 0; i < getHintCount(step); i++) {
+					int hint = getHint(step, i);
+					if(hint < stepOf.length && stepOf[hint] > 0) {
+						needed[stepOf[hint] - 1] = true;
+					}
+				}
+			}
+		}
+		return copy(needed);
+	}
+
+
+	private ProofRecorder copy(boolean[] needed)
+	{
+		ProofRecorder proof = new ProofRecorder();
+		for(int step = 0; step < ids.size(); step++) {
+			if(needed == null || needed[step]) {
+				proof.ids.add(ids.get(step));
+				proof.clauses.add(clauses.get(step));
+				proof.pivots.add(pivots.get(step));
+				proof.hintStarts.add(proof.hints.size());
+				for(int i = 0; i < getHintCount(step); i++) {
+					proof.hints.add(getHint(step, i));
+				}
+			}
+		}
+		proof.refutation = refutation;
+		return proof;
+	}
+
+
+	// Writes the steps in DRAT form: the literals of each derived clause
+	// followed by 0, one per line.
+	public void writeDrat(Appendable out) throws IOException
+	{
+		for(int step = 0; step < ids.size(); step++) {
+			writeLiterals(clauses.get(step), out);
+			out.append("0\n");
+		}
+	}
+
+
+	// Writes the steps in LRAT form: the id, the literals followed by 0 and
+	// the hints followed by 0, one step per line.
+	public void writeLrat(Appendable out) throws IOException
+	{
+		for(int step = 0; step < ids.size(); step++) {
+			out.append(String.valueOf(ids.get(step))).append(' ');
+			writeLiterals(clauses.get(step), out);
+			out.append('0');
+			for(int i = 0; i < getHintCount(step); i++) {
+				out.append(' ').append(String.valueOf(getHint(step, i)));
+			}
+			out.append(" 0\n");
+		}
+	}
+
+
+	private static void writeLiterals(int[] clause, Appendable out) throws IOException
+	{
+		for(int i = 0; i < clause.length; i++) {
+			out.append(String.valueOf(clause[i])).append(' ');
+		}
+	}
+}
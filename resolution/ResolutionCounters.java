@@ -0,0 +1,91 @@
+package resolution;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// A ResolutionListener that adds everything up.  Stages are kept in the
+// order they first ran; a stage that runs again adds to its time and
+// keeps the node counts of its last run.  One instance may be attached to
+// many pipelines in turn to total their work.
+public class ResolutionCounters implements ResolutionListener
+{
+	private LinkedHashMap<String,long[]> stages;	// nanos, nodes before, nodes after
+	private long pairsTried;
+	private long resolvents;
+	private long duplicates;
+	private long subsumed;
+	private long tautologies;
+	private int peakClauses;
+
+	public ResolutionCounters()
+	{
+		stages = new LinkedHashMap<String,long[]>();
+		pairsTried = 0;
+		resolvents = 0;
+		duplicates = 0;
+		subsumed = 0;
+		tautologies = 0;
+		peakClauses = 0;
+	}
+
+
+	public void stageFinished(String stage, long nanos, int nodesBefore, int nodesAfter)
+	{
+		long[] counts = stages.get(stage);
+		if(counts == null) {
+			counts = new long[3];
+			stages.put(stage, counts);
+		}
+		counts[0] += nanos;
+		counts[1] = nodesBefore;
+		counts[2] = nodesAfter;
+	}
+
+
+	public void resolutionStarted(int clauses) { peakClauses = Math.max(peakClauses, clauses); }
+	public void pairTried() { pairsTried++; }
+	public void duplicateRejected() { duplicates++; }
+	public void subsumedRejected() { subsumed++; }
+	public void tautologyRemoved() { tautologies++; }
+
+
+	public void resolventAdded(int liveClauses)
+	{
+		resolvents++;
+		peakClauses = Math.max(peakClauses, liveClauses);
+	}
+
+
+	public long getStageNanos(String stage) { return stageCount(stage, 0); }
+	public long getNodesBefore(String stage) { return stageCount(stage, 1); }
+	public long getNodesAfter(String stage) { return stageCount(stage, 2); }
+	public long getPairsTried() { return pairsTried; }
+	public long getResolvents() { return resolvents; }
+	public long getDuplicatesRejected() { return duplicates; }
+	public long getSubsumedRejected() { return subsumed; }
+	public long getTautologiesRemoved() { return tautologies; }
+	public int getPeakClauses() { return peakClauses; }
+
+
+	// Returns 0 for a stage that never ran.
+	private long stageCount(String stage, int column)
+	{
+		long[] counts = stages.get(stage);
+		return counts == null ? 0 : counts[column];
+	}
+
+
+	// One line per stage, then one with the resolution counts.
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder();
+		for(Map.Entry<String,long[]> stage : stages.entrySet()) {
+			long[] counts = stage.getValue();
+			report.append(String.format(Locale.ROOT, "%s: %.3f ms, %d -> %d nodes%n", stage.getKey(), counts[0] / 1e6, counts[1], counts[2]));
+		}
+		report.append(String.format(Locale.ROOT, "pairs tried: %d, resolvents: %d, duplicates: %d, subsumed: %d, tautologies: %d, peak clauses: %d",
+				pairsTried, resolvents, duplicates, subsumed, tautologies, peakClauses));
+		return report.toString();
+	}
+}
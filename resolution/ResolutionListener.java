@@ -0,0 +1,34 @@
+package resolution;
+
+// Receives measurements from a LogicPipeline and from the resolution
+// run on its ClauseDatabase.  Attach one with LogicPipeline.setListener()
+// or ClauseDatabase.setListener(); without one, each place that would
+// report only tests a field for null.  Every call is made on the thread
+// running the pipeline, and ResolutionCounters simply adds them up.
+public interface ResolutionListener
+{
+	// A step of the pipeline finished.  stage is the name of the
+	// LogicPipeline method, and the node counts are the sizes of the
+	// logic tree, root included, before and after it ran.
+	void stageFinished(String stage, long nanos, int nodesBefore, int nodesAfter);
+
+	// Resolution started on a set of this many clauses.
+	void resolutionStarted(int clauses);
+
+	// Two clauses were resolved.
+	void pairTried();
+
+	// A resolvent was stored, and the database now holds this many live
+	// clauses.
+	void resolventAdded(int liveClauses);
+
+	// A clause was dropped because the set already held it.
+	void duplicateRejected();
+
+	// A resolvent was dropped because a live clause subsumes it.
+	void subsumedRejected();
+
+	// A tautology was removed from the set, or dropped as it was formed
+	// during CNF conversion.
+	void tautologyRemoved();
+}
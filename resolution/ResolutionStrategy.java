@@ -0,0 +1,11 @@
+package resolution;
+
+// A procedure for searching a clause set for a conflict.  Resolution
+// hands the collapsed set to its strategy as a ClauseDatabase; any
+// clauses the strategy derives are added to that database.
+public interface ResolutionStrategy
+{
+	// Returns true when a conflict (the empty clause) can be derived
+	// from the clauses in db, otherwise returns false.
+	boolean findConflict(ClauseDatabase db);
+}
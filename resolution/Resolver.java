@@ -0,0 +1,156 @@
+package resolution;
+
+import java.util.Arrays;
+
+// Resolves pairs of clauses into a scratch buffer that is reused from
+// one pair to the next, so an attempt allocates nothing and a resolvent
+// is only copied out by a caller that keeps it.  The literals of the two
+// clauses are marked in arrays indexed by literal index, each mark being
+// the number of the pair, so that nothing is cleared between pairs.  The
+// resolvent is merged from the two sorted clauses, and comes out sorted
+// and without duplicates, just as the normalized arrays that
+// ClauseDatabase.resolve() and resolveStrictly() return.
+//
+// A Resolver is not safe to share; forThread() gives each thread its own.
+final class Resolver
+{
+	// Returned when two clauses do not resolve
+	static final int NONE = -1;
+
+	private static final ThreadLocal<Resolver> PER_THREAD = new ThreadLocal<Resolver>() {
+		protected Resolver initialValue()
+		{
+			return new Resolver();
+		}
+	};
+
+	private int[] buffer;	// the last resolvent, in its first slots
+	private int[] inFirst;	// by literal index, the pair whose first clause holds it
+	private int[] inSecond;	// and the pair whose second clause holds it
+	private int pair;		// number of the current pair
+
+	Resolver()
+	{
+		buffer = new int[16];
+		inFirst = new int[32];
+		inSecond = new int[32];
+		pair = 0;
+	}
+
+
+	static Resolver forThread()
+	{
+		return PER_THREAD.get();
+	}
+
+
+	// The scratch buffer, which holds the last resolvent in its first
+	// slots until the next pair is resolved.
+	int[] literals() { return buffer; }
+	int[] toArray(int length) { return Arrays.copyOf(buffer, length); }
+
+
+	// Resolves like ClauseDatabase.resolve().  Returns the length of the
+	// resolvent left in literals(), 0 for the empty clause, or NONE.
+	int resolve(int[] clause1, int[] clause2)
+	{
+		mark(clause1, clause2);
+		int inverses = countInverses(clause1);
+		if(inverses == clause1.length) {
+			return 0;
+		}
+		if(inverses == 0) {
+			return NONE;
+		}
+		return merge(clause1, clause2);
+	}
+
+
+	// Resolves like ClauseDatabase.resolveStrictly().  Returns the length
+	// of the resolvent left in literals(), 0 for the empty clause, or NONE.
+	int resolveStrictly(int[] clause1, int[] clause2)
+	{
+		mark(clause1, clause2);
+		if(countInverses(clause1) != 1) {
+			return NONE;
+		}
+		return merge(clause1, clause2);
+	}
+
+
+	// Starts a new pair, marking the literals of both clauses
+	private void mark(int[] clause1, int[] clause2)
+	{
+		int size = 2 * Math.max(largestAtom(clause1), largestAtom(clause2)) + 2;
+		if(size > inFirst.length) {
+			inFirst = Arrays.copyOf(inFirst, Math.max(size, 2 * inFirst.length));
+			inSecond = Arrays.copyOf(inSecond, inFirst.length);
+		}
+		if(clause1.length + clause2.length > buffer.length) {
+			buffer = new int[Math.max(clause1.length + clause2.length, 2 * buffer.length)];
+		}
+		if(pair == Integer.MAX_VALUE) {
+			Arrays.fill(inFirst, 0);
+			Arrays.fill(inSecond, 0);
+			pair = 0;
+		}
+		pair++;
+		for(int i = 0; i < clause1.length; i++) {
+			inFirst[ClauseDatabase.index(clause1[i])] = pair;
+		}
+		for(int i = 0; i < clause2.length; i++) {
+			inSecond[ClauseDatabase.index(clause2[i])] = pair;
+		}
+	}
+
+
+	// The largest atom of a sorted clause, whose extremes are its first
+	// and last literals, or -1 when it is empty
+	private static int largestAtom(int[] clause)
+	{
+		if(clause.length == 0) {
+			return -1;
+		}
+		return Math.max(ClauseDatabase.atomOf(clause[0]), ClauseDatabase.atomOf(clause[clause.length - 1]));
+	}
+
+
+	// The number of literals of clause1 whose inverse is in clause2
+	private int countInverses(int[] clause1)
+	{
+		int inverses = 0;
+		for(int i = 0; i < clause1.length; i++) {
+			// The inverse of a literal has the neighbouring index
+			if(inSecond[ClauseDatabase.index(clause1[i]) ^ 1] == pair) {
+				inverses++;
+			}
+		}
+		return inverses;
+	}
+
+
+	// Merges the literals of both clauses whose inverse is not in the
+	// other into the buffer, in order and once each.  Returns the length.
+	private int merge(int[] clause1, int[] clause2)
+	{
+		int length = 0;
+		int i = 0;
+		int j = 0;
+		while(i < clause1.length || j < clause2.length) {
+			int literal;
+			boolean kept;
+			if(j == clause2.length || (i < clause1.length && clause1[i] <= clause2[j])) {
+				literal = clause1[i++];
+				kept = inSecond[ClauseDatabase.index(literal) ^ 1] != pair;
+			}
+			else {
+				literal = clause2[j++];
+				kept = inFirst[ClauseDatabase.index(literal) ^ 1] != pair;
+			}
+			if(kept && (length == 0 || buffer[length - 1] != literal)) {
+				buffer[length++] = literal;
+			}
+		}
+		return length;
+	}
+}
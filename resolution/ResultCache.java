@@ -0,0 +1,283 @@
+package resolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import processing.data.XML;
+
+// Remembers the CNF and the resolution verdict of recently seen
+// formulas, keyed by a canonical form, so a formula that only differs
+// from an earlier one by the names of its atoms or the order of the
+// operands of &&, || and <=> is not converted or solved again.
+//
+// The canonical form flattens chains of && and of ||, sorts the operands
+// of every commutative operator by their shape (the formula with every
+// atom name erased), and then renames the atoms in order of their first
+// occurrence.  Two formulas with the same key are the same formula up to
+// renaming, so they share the CNF and are equally satisfiable.  Operands
+// with the same shape keep their order, so a few equivalent formulas
+// still get different keys.
+//
+// The least recently used entry is evicted once there are more than
+// capacity.  Verdicts are stored as the strategy passed to solve() found
+// them, so a cache should only be used with one kind of strategy.
+public class ResultCache
+{
+	private LinkedHashMap<String,CacheEntry> entries;
+	private int capacity;
+	private int hits;
+	private int misses;
+
+	// The CNF of a canonical formula, with canonical atom k as atom k
+	private static class CacheEntry
+	{
+		int[][] clauses;
+		Boolean conflict;	// null until the formula is solved
+	}
+
+	public ResultCache(final int capacity)
+	{
+		this.capacity = capacity;
+		entries = new LinkedHashMap<String,CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String,CacheEntry> eldest)
+			{
+				return size() > capacity;
+			}
+		};
+	}
+
+
+	public synchronized int getHits() { return hits; }
+	public synchronized int getMisses() { return misses; }
+	public synchronized int size() { return entries.size(); }
+
+
+	// Returns what BatchMain.solve() would: true when resolution with
+	// strategy finds a conflict in the first statement of formula.
+	public boolean solve(String formula, ResolutionStrategy strategy)
+	{
+		return solve(formula, strategy, null) == Outcome.CONFLICT;
+	}
+
+
+	// Like solve(), with the search bounded by budget when it is not
+	// null.  UNKNOWN outcomes are returned but not remembered.
+	public Outcome solve(String formula, ResolutionStrategy strategy, Budget budget)
+	{
+		Canonical canonical = new Canonical(LogicParser.toXML(formula).getChild(0));
+		CacheEntry entry = lookup(canonical.key, true);
+		if(entry == null) {
+			entry = convert(canonical);
+		}
+		else if(entry.conflict != null) {
+			return entry.conflict ? Outcome.CONFLICT : Outcome.NO_CONFLICT;
+		}
+		ClauseDatabase db = new ClauseDatabase();
+		for(int i = 0; i < canonical.atoms.size(); i++) {
+			db.internAtom(String.valueOf(i));
+		}
+		for(int i = 0; i < entry.clauses.length; i++) {
+			db.addClause(entry.clauses[i]);
+		}
+		db.setBudget(budget);
+		boolean conflict = strategy.findConflict(db);
+		Outcome outcome = budget != null ? budget.outcome(conflict) : conflict ? Outcome.CONFLICT : Outcome.NO_CONFLICT;
+		synchronized(this) {
+			if(outcome != Outcome.UNKNOWN) {
+				entry.conflict = conflict;
+			}
+			entries.put(canonical.key, entry);
+		}
+		return outcome;
+	}
+
+
+	// Returns the CNF of the first statement of formula as a collapsed
+	// set, in the atoms of formula.
+	public XML toCnf(String formula)
+	{
+		Canonical canonical = new Canonical(LogicParser.toXML(formula).getChild(0));
+		CacheEntry entry = lookup(canonical.key, false);
+		if(entry == null) {
+			entry = convert(canonical);
+			synchronized(this) {
+				entries.put(canonical.key, entry);
+			}
+		}
+		ClauseDatabase db = new ClauseDatabase();
+		for(int i = 0; i < canonical.atoms.size(); i++) {
+			db.internAtom(canonical.atoms.get(i));
+		}
+		for(int i = 0; i < entry.clauses.length; i++) {
+			db.addClause(entry.clauses[i]);
+		}
+		return db.toXML();
+	}
+
+
+	// Counts a hit when the entry can answer the request: with
+	// needVerdict set, only an entry that has been solved can.
+	private synchronized CacheEntry lookup(String key, boolean needVerdict)
+	{
+		CacheEntry entry = entries.get(key);
+		if(entry != null && (!needVerdict || entry.conflict != null)) {
+			hits++;
+		}
+		else {
+			misses++;
+		}
+		return entry;
+	}
+
+
+	private static CacheEntry convert(Canonical canonical)
+	{
+		ClauseDatabase db = new ClauseDatabase();
+		for(int i = 0; i < canonical.atoms.size(); i++) {
+			db.internAtom(String.valueOf(i));
+		}
+		new CnfConverter(db).assertFormula(canonical.formula);
+		CacheEntry entry = new CacheEntry();
+		entry.clauses = new int[db.size()][];
+		for(int i = 0; i < db.size(); i++) {
+			entry.clauses[i] = db.getClause(i);
+		}
+		return entry;
+	}
+
+
+	// The canonical form of one formula: its key, the same formula with
+	// atom k named "k", and the original name of each canonical atom.
+	private static class Canonical
+	{
+		final String key;
+		final Formula formula;
+		final ArrayList<String> atoms = new ArrayList<String>();
+		private final HashMap<String,Integer> atomIds = new HashMap<String,Integer>();
+		private final HashMap<Formula,String> shapes = new HashMap<Formula,String>();
+		private final FormulaFactory canonicalFactory = new FormulaFactory();
+
+		Canonical(XML node)
+		{
+			StringBuilder builder = new StringBuilder();
+			formula = write(new FormulaFactory().fromXML(node), builder);
+			key = builder.toString();
+		}
+
+
+		// Appends the key of formula to key and returns it with its atoms
+		// renamed, walking commutative operands in sorted order.
+		private Formula write(Formula formula, StringBuilder key)
+		{
+			int kind = formula.getKind();
+			if(kind == Formula.ATOM) {
+				Integer id = atomIds.get(formula.getName());
+				if(id == null) {
+					id = atoms.size();
+					atoms.add(formula.getName());
+					atomIds.put(formula.getName(), id);
+				}
+				key.append(id);
+				return canonicalFactory.atom(String.valueOf(id));
+			}
+			if(kind == Formula.NOT) {
+				key.append('!');
+				return canonicalFactory.not(write(formula.getOperand(0), key));
+			}
+			Formula[] operands = operands(formula);
+			key.append('(').append(kind);
+			Formula result = null;
+			for(int i = 0; i < operands.length; i++) {
+				key.append(' ');
+				Formula operand = write(operands[i], key);
+				result = i == 0 ? operand : combine(kind, result, operand);
+			}
+			key.append(')');
+			return result;
+		}
+
+
+		private Formula combine(int kind, Formula left, Formula right)
+		{
+			switch(kind) {
+			case Formula.AND: return canonicalFactory.and(left, right);
+			case Formula.OR: return canonicalFactory.or(left, right);
+			case Formula.CONDITION: return canonicalFactory.condition(left, right);
+			default: return canonicalFactory.bicondition(left, right);
+			}
+		}
+
+
+		// The operands of formula in canonical order.  Chains of && and of
+		// || are flattened, and commutative operands are sorted by shape.
+		private Formula[] operands(Formula formula)
+		{
+			int kind = formula.getKind();
+			if(kind == Formula.CONDITION) {
+				return new Formula[] { formula.getOperand(0), formula.getOperand(1) };
+			}
+			ArrayList<Formula> list = new ArrayList<Formula>();
+			if(kind == Formula.BICONDITION) {
+				list.add(formula.getOperand(0));
+				list.add(formula.getOperand(1));
+			}
+			else {
+				flatten(formula, kind, list);
+			}
+			Formula[] operands = list.toArray(new Formula[list.size()]);
+			// Arrays.sort on objects is stable
+			Arrays.sort(operands, new Comparator<Formula>() {
+				public int compare(Formula f1, Formula f2)
+				{
+					return shape(f1).compareTo(shape(f2));
+				}
+			});
+			return operands;
+		}
+
+
+		private void flatten(Formula formula, int kind, ArrayList<Formula> operands)
+		{
+			for(int i = 0; i < formula.getOperandCount(); i++) {
+				if(formula.getOperand(i).getKind() == kind) {
+					flatten(formula.getOperand(i), kind, operands);
+				}
+				else {
+					operands.add(formula.getOperand(i));
+				}
+			}
+		}
+
+
+		// The canonical key of formula with every atom written as "a"
+		private String shape(Formula formula)
+		{
+			String shape = shapes.get(formula);
+			if(shape != null) {
+				return shape;
+			}
+			if(formula.getKind() == Formula.ATOM) {
+				shape = "a";
+			}
+			else if(formula.getKind() == Formula.NOT) {
+				shape = "!" + shape(formula.getOperand(0));
+			}
+			else {
+				StringBuilder builder = new StringBuilder("(").append(formula.getKind());
+				Formula[] operands = operands(formula);
+				for(int i = 0; i < operands.length; i++) {
+					builder.append(' ').append(shape(operands[i]));
+				}
+				shape = builder.append(')').toString();
+			}
+			shapes.put(formula, shape);
+			return shape;
+		}
+	}
+}
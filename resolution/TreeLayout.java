@@ -0,0 +1,237 @@
+package resolution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import processing.data.XML;
+
+// Places the nodes of an XML tree for drawing, in the manner of
+// Reingold and Tilford: each subtree is laid out on its own, siblings are
+// pushed together as closely as their contours allow, one slot apart at
+// every level, and a parent is centred over its first and last child.
+// A subtree never overlaps another, however deep or wide the tree.
+//
+// The contour of a subtree is its leftmost and rightmost x at every
+// level.  Merging two contours only walks the levels both have, and the
+// taller one's arrays are kept and updated rather than copied, so every
+// level is walked once in all: the layout takes time linear in the
+// number of nodes.  Nothing recurses, so a long chain of binary
+// operators lays out as well as a flat set of clauses.
+//
+// Nodes are numbered in preorder, so the subtree of node i is the range
+// from i to getSubtreeEnd(i).  Each subtree's extent is kept, letting a
+// renderer skip a whole subtree that is out of view.  x is measured in
+// slots from the leftmost node and depth in levels from the root.
+public class TreeLayout
+{
+	private XML[] nodes;
+	private int[] parent;		// -1 for the root
+	private int[] depth;
+	private int[] end;			// one past the last node of each subtree
+	private double[] x;
+	private double[] minX;		// subtree extents
+	private double[] maxX;
+	private int[] maxDepth;
+	private double width;
+	private int height;
+
+	// The left and right contours of a laid out subtree.  Level d is
+	// stored at index size-1-d, so a parent adds its own level at the end,
+	// and every stored x is relative to offset.
+	private static class Contour
+	{
+		double[] left;
+		double[] right;
+		int size;
+		double offset;
+
+		Contour()
+		{
+			left = new double[4];
+			right = new double[4];
+			size = 0;
+			offset = 0;
+		}
+
+		double left(int level) { return left[size - 1 - level] + offset; }
+		double right(int level) { return right[size - 1 - level] + offset; }
+		void setLeft(int level, double value) { left[size - 1 - level] = value - offset; }
+		void setRight(int level, double value) { right[size - 1 - level] = value - offset; }
+
+		// Adds a level above the others, holding a single node at value
+		void addRoot(double value)
+		{
+			if(size == left.length) {
+				left = Arrays.copyOf(left, 2 * size);
+				right = Arrays.copyOf(right, 2 * size);
+			}
+			left[size] = value - offset;
+			right[size] = value - offset;
+			size++;
+		}
+	}
+
+	public TreeLayout(XML root)
+	{
+		number(root);
+		double[] relative = placeSubtrees();
+		int n = nodes.length;
+		x = new double[n];
+		double leftmost = 0;
+		for(int i = 1; i < n; i++) {
+			x[i] = x[parent[i]] + relative[i];
+			leftmost = Math.min(leftmost, x[i]);
+		}
+		minX = new double[n];
+		maxX = new double[n];
+		maxDepth = new int[n];
+		width = 0;
+		height = 0;
+		for(int i = 0; i < n; i++) {
+			x[i] -= leftmost;
+			minX[i] = x[i];
+			maxX[i] = x[i];
+			maxDepth[i] = depth[i];
+			width = Math.max(width, x[i]);
+			height = Math.max(height, depth[i] + 1);
+		}
+		// Children come after their parent in preorder
+		for(int i = n - 1; i > 0; i--) {
+			int p = parent[i];
+			minX[p] = Math.min(minX[p], minX[i]);
+			maxX[p] = Math.max(maxX[p], maxX[i]);
+			maxDepth[p] = Math.max(maxDepth[p], maxDepth[i]);
+		}
+	}
+
+
+	public int size() { return nodes.length; }
+	public XML getNode(int i) { return nodes[i]; }
+	public int getParent(int i) { return parent[i]; }
+	public int getDepth(int i) { return depth[i]; }
+	public double getX(int i) { return x[i]; }
+	public int getSubtreeEnd(int i) { return end[i]; }
+	public double getSubtreeMinX(int i) { return minX[i]; }
+	public double getSubtreeMaxX(int i) { return maxX[i]; }
+	public int getSubtreeMaxDepth(int i) { return maxDepth[i]; }
+
+	// The x of the rightmost node, and the number of levels
+	public double getWidth() { return width; }
+	public int getHeight() { return height; }
+
+
+	// Numbers the nodes in preorder and fills in parent, depth and end
+	private void number(XML root)
+	{
+		ArrayDeque<XML> stack = new ArrayDeque<XML>();
+		ArrayDeque<Integer> parents = new ArrayDeque<Integer>();
+		ArrayList<XML> order = new ArrayList<XML>();
+		IntList parentList = new IntList();
+		stack.push(root);
+		parents.push(-1);
+		while(!stack.isEmpty()) {
+			XML node = stack.pop();
+			int id = order.size();
+			order.add(node);
+			parentList.add(parents.pop());
+			XML[] children = node.getChildren();
+			for(int i = children.length - 1; i >= 0; i--) {
+				stack.push(children[i]);
+				parents.push(id);
+			}
+		}
+		int n = order.size();
+		nodes = order.toArray(new XML[n]);
+		parent = parentList.toArray();
+		depth = new int[n];
+		for(int i = 1; i < n; i++) {
+			depth[i] = depth[parent[i]] + 1;
+		}
+		end = new int[n];
+		int[] size = new int[n];
+		for(int i = n - 1; i >= 0; i--) {
+			size[i]++;
+			if(i > 0) {
+				size[parent[i]] += size[i];
+			}
+			end[i] = i + size[i];
+		}
+	}
+
+
+	// Lays out every subtree, children before parents, and returns the x
+	// of each node relative to its parent.
+	private double[] placeSubtrees()
+	{
+		int n = nodes.length;
+		double[] relative = new double[n];
+		double[] position = new double[n];	// of each child, from its first sibling
+		Contour[] contours = new Contour[n];
+		for(int v = n - 1; v >= 0; v--) {
+			Contour merged = null;
+			int last = -1;
+			for(int c = v + 1; c < end[v]; c = end[c]) {
+				if(merged == null) {
+					merged = contours[c];
+					position[c] = 0;
+				}
+				else {
+					position[c] = separate(merged, contours[c]);
+					merged = merge(merged, contours[c], position[c]);
+				}
+				contours[c] = null;
+				last = c;
+			}
+			if(merged == null) {
+				merged = new Contour();
+				merged.addRoot(0);
+			}
+			else {
+				// Centre v over its first and last child
+				double centre = position[last] / 2;
+				for(int c = v + 1; c < end[v]; c = end[c]) {
+					relative[c] = position[c] - centre;
+				}
+				merged.offset -= centre;
+				merged.addRoot(0);
+			}
+			contours[v] = merged;
+		}
+		return relative;
+	}
+
+
+	// Returns how far right of the siblings in left the next sibling must
+	// go for its contour to be one slot clear at every level they share.
+	private static double separate(Contour left, Contour next)
+	{
+		int shared = Math.min(left.size, next.size);
+		double distance = 0;
+		for(int level = 0; level < shared; level++) {
+			distance = Math.max(distance, left.right(level) - next.left(level) + 1);
+		}
+		return distance;
+	}
+
+
+	// Joins the contour of the next sibling, placed at position, to the
+	// contour of the siblings before it.  The arrays of the taller of the
+	// two are kept, and only the levels both have are rewritten.
+	private static Contour merge(Contour left, Contour next, double position)
+	{
+		next.offset += position;
+		int shared = Math.min(left.size, next.size);
+		if(next.size > left.size) {
+			// The left siblings now make up the left side of these levels
+			for(int level = 0; level < shared; level++) {
+				next.setLeft(level, left.left(level));
+			}
+			return next;
+		}
+		for(int level = 0; level < shared; level++) {
+			left.setRight(level, next.right(level));
+		}
+		return left;
+	}
+}
@@ -0,0 +1,109 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import resolution.BatchMain;
+import resolution.Budget;
+import resolution.GivenClauseResolution;
+import resolution.Outcome;
+
+public class BudgetTest {
+
+	static final String[] STRATEGIES = { "all-pairs", "given-clause", "units", "parallel", "cdcl" };
+
+	@Test public void unlimitedBudgetDecides() {
+		assertEquals(Outcome.CONFLICT, BatchMain.solve("A && !A", new GivenClauseResolution(), new Budget()));
+		assertEquals(Outcome.NO_CONFLICT, BatchMain.solve("A || B", new GivenClauseResolution(), new Budget()));
+		assertEquals(Outcome.NO_CONFLICT, BatchMain.solve("A || B", new GivenClauseResolution(), null));
+	}
+
+	@Test public void cancelledBudgetStopsEveryStrategy() {
+		for(String strategy : STRATEGIES) {
+			Budget budget = new Budget();
+			budget.cancel();
+			assertEquals(strategy, Outcome.UNKNOWN, BatchMain.solve(parity(8), BatchMain.createStrategy(strategy), budget));
+		}
+	}
+
+	@Test public void resolventLimitIsRespected() {
+		Budget budget = new Budget();
+		budget.setMaxResolvents(50);
+		assertEquals(Outcome.UNKNOWN, BatchMain.solve(chain(20), new GivenClauseResolution(false, true), budget));
+		assertEquals(50, budget.getResolventCount());
+		budget = new Budget();
+		budget.setMaxResolvents(1000);
+		assertEquals(Outcome.NO_CONFLICT, BatchMain.solve(chain(20), new GivenClauseResolution(false, true), budget));
+		assertEquals(19 * 18 / 2, budget.getResolventCount());
+	}
+
+	@Test public void longResolventsAreDropped() {
+		Budget budget = new Budget();
+		budget.setMaxClauseLength(1);
+		assertEquals(Outcome.UNKNOWN, BatchMain.solve("(A || B || C) && (!A || B)", new GivenClauseResolution(), budget));
+		assertEquals(1, budget.getDroppedCount());
+		budget = new Budget();
+		budget.setMaxClauseLength(1);
+		assertEquals(Outcome.CONFLICT, BatchMain.solve("(A || B) && (!A || B) && (A || !B) && (!A || !B)", new GivenClauseResolution(false, true), budget));
+	}
+
+	@Test(timeout = 5000) public void timeLimitStopsLongRun() {
+		Budget budget = new Budget();
+		budget.setTimeLimit(100);
+		assertEquals(Outcome.UNKNOWN, BatchMain.solve(parity(14), new GivenClauseResolution(false, true), budget));
+	}
+
+	@Test public void hugeTimeLimitDoesNotStopARun() {
+		Budget budget = new Budget();
+		budget.setTimeLimit(Long.MAX_VALUE);
+		assertEquals(Outcome.NO_CONFLICT, BatchMain.solve(chain(20), new GivenClauseResolution(false, true), budget));
+	}
+
+	@Test(timeout = 5000) public void cancelFromAnotherThreadStopsLongRun() throws InterruptedException {
+		final Budget budget = new Budget();
+		Thread canceller = new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(100);
+				}
+				catch(InterruptedException e) {
+					return;
+				}
+				budget.cancel();
+			}
+		};
+		canceller.start();
+		assertEquals(Outcome.UNKNOWN, BatchMain.solve(parity(14), new GivenClauseResolution(false, true), budget));
+		canceller.join();
+		assertTrue(budget.isCancelled());
+	}
+
+	// (A => B) && (B => C) && ... over n atoms, whose resolvents are the
+	// implications between every pair of atoms that are not neighbours
+	private static String chain(int n) {
+		StringBuilder formula = new StringBuilder();
+		for(int i = 0; i < n - 1; i++) {
+			if(i > 0) {
+				formula.append(" && ");
+			}
+			formula.append("(").append((char)('A' + i)).append(" => ").append((char)('A' + i + 1)).append(")");
+		}
+		return formula.toString();
+	}
+
+	// A <=> (B <=> (C <=> ...)) over n atoms: satisfiable, but it has
+	// 2^(n-1) clauses, so strict resolution takes seconds to try every
+	// pair from n = 14
+	private static String parity(int n) {
+		StringBuilder formula = new StringBuilder();
+		for(int i = 0; i < n - 1; i++) {
+			formula.append("(").append((char)('A' + i)).append(" <=> ");
+		}
+		formula.append((char)('A' + n - 1));
+		for(int i = 0; i < n - 1; i++) {
+			formula.append(")");
+		}
+		return formula.toString();
+	}
+}
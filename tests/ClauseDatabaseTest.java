@@ -0,0 +1,145 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import processing.data.XML;
+import resolution.ClauseDatabase;
+import resolution.LogicParser;
+import resolution.Resolution;
+
+public class ClauseDatabaseTest {
+
+	ClauseDatabase db;
+
+	@Test public void atomsAreInternedOnce() {
+		givenCollapsedInput("(A || B) && (!B || A)");
+		assertEquals(2, db.getAtomCount());
+		assertEquals("A", db.getAtomName(0));
+		assertEquals("B", db.getAtomName(1));
+	}
+
+	@Test public void clausesAreSortedWithoutDuplicates() {
+		db = new ClauseDatabase();
+		int a = db.internAtom("A");
+		int b = db.internAtom("B");
+		int id = db.addClause(new int[] { lit(b), lit(a), lit(b) });
+		assertArrayEquals(new int[] { lit(a), lit(b) }, db.getClause(id));
+	}
+
+	@Test public void resolvesOnInverseLiterals() {
+		assertArrayEquals(new int[] { 2, 3 }, ClauseDatabase.resolve(new int[] { 1, 2 }, new int[] { -1, 3 }));
+	}
+
+	@Test public void resolveReturnsNullWithoutInverses() {
+		assertNull(ClauseDatabase.resolve(new int[] { 1, 2 }, new int[] { 1, 3 }));
+	}
+
+	@Test public void resolveReturnsEmptyClauseOnConflict() {
+		assertEquals(0, ClauseDatabase.resolve(new int[] { 1 }, new int[] { -1 }).length);
+	}
+
+	@Test public void convertsBackToXML() {
+		givenCollapsedInput("(A || !B) && (B || C)");
+		assertEquals("<and><or><not><B/></not><A/></or><or><B/><C/></or></and>", db.toXML().toString());
+	}
+
+	@Test public void detectsDuplicateClauses() {
+		givenCollapsedInput("(A || B) && (B || C)");
+		assertTrue(db.containsClause(db.getClause(1).clone()));
+		assertFalse(db.containsClause(new int[] { 1, 3 }));
+	}
+
+	@Test public void dropsSubsumedResolvent() {
+		givenCollapsedInput("(A || B) && (B || C)");
+		assertEquals(-1, db.addResolvent(new int[] { 1, 2, 3 }));
+		assertEquals(2, db.size());
+	}
+
+	@Test public void retiresClausesSubsumedByResolvent() {
+		givenCollapsedInput("(A || C) && ((A || B) && (B || C))");
+		int id = db.addResolvent(new int[] { db.internAtom("B") + 1 });
+		assertFalse(db.isRetired(0));
+		assertTrue(db.isRetired(1));
+		assertTrue(db.isRetired(2));
+		assertFalse(db.isRetired(id));
+		assertEquals(2, db.getLiveCount());
+	}
+
+	@Test public void addsResolventFromTheStartOfABuffer() {
+		givenCollapsedInput("(A || B) && (B || C)");
+		int[] buffer = { 1, 2, 3, 4 };
+		assertEquals(-1, db.addResolvent(buffer, 2));
+		buffer[0] = -1;
+		int id = db.addResolvent(buffer, 2);
+		assertEquals(2, id);
+		// The buffer is copied, so reusing it leaves the clause alone
+		buffer[1] = 3;
+		assertArrayEquals(new int[] { -1, 2 }, db.getClause(id));
+		assertFalse(db.containsClause(buffer, 2));
+		assertTrue(db.containsClause(new int[] { -1, 2, 3 }, 2));
+	}
+
+	@Test public void resolvesPairsOfMixedSizesInTurn() {
+		// Each pair reuses the scratch state the one before left behind
+		assertArrayEquals(new int[] { -9, 2, 3, 40 }, ClauseDatabase.resolve(new int[] { -9, 1, 2, 40 }, new int[] { -1, 2, 3 }));
+		assertArrayEquals(new int[] { 3 }, ClauseDatabase.resolve(new int[] { -1, 3 }, new int[] { 1 }));
+		assertNull(ClauseDatabase.resolveStrictly(new int[] { -9, 1 }, new int[] { -1, 9 }));
+		assertArrayEquals(new int[] { -2, 1 }, ClauseDatabase.resolve(new int[] { -2, 1 }, new int[] { -1, 1 }));
+	}
+
+	@Test public void indexesClausesByLiteral() {
+		db = new ClauseDatabase();
+		int a = db.internAtom("A");
+		int b = db.internAtom("B");
+		db.addClause(new int[] { lit(a), -lit(b) });
+		db.addClause(new int[] { lit(b) });
+		db.addClause(new int[] { -lit(b), -lit(a) });
+		assertEquals(2, db.getOccurrenceCount(-lit(b)));
+		assertEquals(0, db.getOccurrence(-lit(b), 0));
+		assertEquals(2, db.getOccurrence(-lit(b), 1));
+		assertEquals(1, db.getOccurrenceCount(lit(b)));
+	}
+
+	@Test public void resolvesStrictlyOnOnePair() {
+		assertArrayEquals(new int[] { 2, 3 }, ClauseDatabase.resolveStrictly(new int[] { 1, 2 }, new int[] { -1, 3 }));
+		assertEquals(0, ClauseDatabase.resolveStrictly(new int[] { 1 }, new int[] { -1 }).length);
+	}
+
+	@Test public void resolveStrictlyDropsTautologies() {
+		assertNull(ClauseDatabase.resolveStrictly(new int[] { 1, 2 }, new int[] { -2, -1 }));
+	}
+
+	@Test public void truncateRollsBackClausesAndRetirements() {
+		db = new ClauseDatabase();
+		int a = db.internAtom("A");
+		int b = db.internAtom("B");
+		db.addClause(new int[] { lit(a), lit(b) });
+		db.addClause(new int[] { lit(a), -lit(b) });
+		int size = db.size();
+		int retirements = db.getRetirementCount();
+		db.addResolvent(new int[] { lit(a) });
+		assertTrue(db.isRetired(0));
+		db.truncate(size, retirements);
+		assertEquals(2, db.size());
+		assertEquals(2, db.getLiveCount());
+		assertFalse(db.isRetired(0));
+		assertFalse(db.isRetired(1));
+		assertFalse(db.containsClause(new int[] { lit(a) }));
+		assertTrue(db.containsClause(new int[] { lit(a), lit(b) }));
+		assertEquals(2, db.getOccurrenceCount(lit(a)));
+		assertEquals(1, db.addClause(new int[] { lit(a), -lit(b) }) - 1);
+	}
+
+	private void givenCollapsedInput(String input) {
+		XML tree = LogicParser.toXML(input);
+		new Resolution(null, tree).collapse();
+		db = ClauseDatabase.fromXML(tree.getChild(0));
+	}
+
+	private int lit(int atom) {
+		return ClauseDatabase.literal(atom, false);
+	}
+
+}
@@ -0,0 +1,91 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import resolution.BatchMain;
+import resolution.CdclSolver;
+import resolution.ClauseDatabase;
+import resolution.Dimacs;
+import resolution.GivenClauseResolution;
+import resolution.LogicParser;
+import resolution.LogicPipeline;
+
+public class DimacsTest {
+
+	@Test public void readsClausesInFileOrder() throws IOException {
+		ClauseDatabase db = read("c a comment\np cnf 3 3\n1 -3 0\n2 3 -1 0\n-2\n0\n");
+		assertEquals(3, db.getAtomCount());
+		assertEquals("x1", db.getAtomName(0));
+		assertEquals(3, db.size());
+		assertArrayEquals(new int[] {-3, 1}, db.getClause(0));
+		assertArrayEquals(new int[] {-1, 2, 3}, db.getClause(1));
+		assertArrayEquals(new int[] {-2}, db.getClause(2));
+	}
+
+	@Test public void acceptsLooseEndings() throws IOException {
+		// SATLIB's trailer, and a last clause without its 0
+		assertEquals(1, read("p cnf 2 1\r\n1 2 0\r\n%\r\n0\r\n").size());
+		ClauseDatabase db = read("p cnf 2 2\n1 0 -1 2");
+		assertEquals(2, db.size());
+		assertArrayEquals(new int[] {-1, 2}, db.getClause(1));
+		// A variable beyond the header is interned as well
+		assertEquals(4, read("p cnf 2 1\n4 0\n").getAtomCount());
+	}
+
+	@Test public void anEmptyClauseIsAConflict() throws IOException {
+		String text = "p cnf 2 2\n1 2 0\n0\n";
+		for(String strategy : new String[] { "all-pairs", "given-clause", "units", "parallel", "cdcl" }) {
+			assertTrue(strategy, BatchMain.createStrategy(strategy).findConflict(read(text)));
+		}
+		assertTrue(new GivenClauseResolution(true, true).findConflict(read(text)));
+	}
+
+	@Test public void reportsMalformedInput() throws IOException {
+		assertMalformed("1 2 0\n", "line 1");
+		assertMalformed("p cnf 2 1\n1 x 0\n", "line 2");
+		assertMalformed("p dnf 2 1\n", "cnf");
+		assertMalformed("", "problem line");
+	}
+
+	@Test public void writesTheCollapsedSet() throws IOException {
+		LogicPipeline pipeline = new LogicPipeline(LogicParser.toXML("(A || !B) && (B || A) && !C"));
+		pipeline.convertToCnf();
+		StringWriter out = new StringWriter();
+		Dimacs.write(pipeline.getTree().getChild(0), out);
+		// Atoms are numbered as they first occur in the set, which the
+		// conversion has left as (!B || A) && (B || A) && !C
+		assertEquals("c 1 B\nc 2 A\nc 3 C\np cnf 3 3\n-1 2 0\n1 2 0\n-3 0\n", out.toString());
+	}
+
+	@Test public void roundTrips() throws IOException {
+		String text = "p cnf 3 4\n-3 1 0\n-1 2 3 0\n-2 0\n-1 0\n";
+		ClauseDatabase db = read(text);
+		StringWriter out = new StringWriter();
+		Dimacs.write(db, out);
+		assertEquals(text, out.toString());
+		assertFalse(new CdclSolver().findConflict(read(out.toString())));
+	}
+
+	private static ClauseDatabase read(String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		return Dimacs.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+	}
+
+	private static void assertMalformed(String text, String message) throws IOException {
+		try {
+			read(text);
+			fail("read " + text);
+		}
+		catch(IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+}
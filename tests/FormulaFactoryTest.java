@@ -0,0 +1,56 @@
+package tests;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static tests.XMLMatcher.equivalentTo;
+
+import org.junit.Test;
+
+import processing.data.XML;
+import resolution.Formula;
+import resolution.FormulaFactory;
+import resolution.LogicParser;
+import resolution.LogicPipeline;
+
+public class FormulaFactoryTest {
+
+	FormulaFactory factory = new FormulaFactory();
+
+	@Test public void equalFormulasAreTheSameObject() {
+		Formula first = factory.condition(factory.atom("A"), factory.not(factory.atom("B")));
+		Formula second = factory.condition(factory.atom("A"), factory.not(factory.atom("B")));
+		assertSame(first, second);
+		assertEquals(4, factory.size());
+	}
+
+	@Test public void operandOrderMatters() {
+		assertNotSame(factory.and(factory.atom("A"), factory.atom("B")), factory.and(factory.atom("B"), factory.atom("A")));
+	}
+
+	@Test public void repeatedSubtreesAreStoredOnce() {
+		Formula formula = factory.fromXML(LogicParser.toXML("(A && B) <=> !(A && B)").getChild(0));
+		assertSame(formula.getOperand(0), formula.getOperand(1).getOperand(0));
+		assertEquals(5, factory.size());
+	}
+
+	@Test public void expandedBiconditionsGrowWithDistinctSubformulas() {
+		String input = "A";
+		for(char c = 'B'; c <= 'P'; c++) {
+			input = "(" + input + ") <=> " + c;
+		}
+		LogicPipeline pipeline = new LogicPipeline(LogicParser.toXML(input));
+		pipeline.eliminateBiconditions();
+		// The tree doubles in size with each bicondition, but the conditions
+		// in each of its copies are the same formulas.
+		factory.fromXML(pipeline.getTree().getChild(0));
+		assertEquals(16 + 15 * 3, factory.size());
+	}
+
+	@Test public void appendToXMLWritesTheFormulaBack() {
+		XML expected = LogicParser.toXML("!(A => B) || (C <=> A)");
+		XML actual = new XML("logic");
+		FormulaFactory.appendToXML(actual, factory.fromXML(expected.getChild(0)));
+		assertThat(actual, is(equivalentTo(expected)));
+	}
+
+}
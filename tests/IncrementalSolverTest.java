@@ -0,0 +1,50 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import resolution.IncrementalSolver;
+
+public class IncrementalSolverTest {
+
+	IncrementalSolver solver = new IncrementalSolver();
+
+	@Test public void entailsConsequencesOfTheBase() {
+		solver.addFormula("A => B\nB => C");
+		assertTrue(solver.entails("A => C"));
+		assertFalse(solver.entails("C => A"));
+	}
+
+	@Test public void assumptionsOnlyHoldForOneQuery() {
+		solver.addFormula("(A && B) => C");
+		assertTrue(solver.entails("C", "A", "B"));
+		assertFalse(solver.entails("C", "A"));
+		assertFalse(solver.entails("C"));
+	}
+
+	@Test public void queriesLeaveTheBaseUnchanged() {
+		solver.addFormula("A => B\nB => C\nC => D");
+		solver.isConsistent();
+		int size = solver.getDatabase().size();
+		int live = solver.getDatabase().getLiveCount();
+		assertTrue(solver.entails("D", "A"));
+		assertTrue(solver.entails("!A", "!D"));
+		assertEquals(size, solver.getDatabase().size());
+		assertEquals(live, solver.getDatabase().getLiveCount());
+	}
+
+	@Test public void formulasCanBeAddedBetweenQueries() {
+		solver.addFormula("A => B");
+		assertFalse(solver.entails("B"));
+		solver.addFormula("A");
+		assertTrue(solver.entails("B"));
+	}
+
+	@Test public void anInconsistentBaseEntailsEverything() {
+		solver.addFormula("A && !A");
+		assertFalse(solver.isConsistent());
+		assertTrue(solver.entails("B"));
+	}
+
+}
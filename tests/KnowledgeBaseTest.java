@@ -0,0 +1,104 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import resolution.CdclSolver;
+import resolution.ClauseDatabase;
+import resolution.GivenClauseResolution;
+import resolution.KnowledgeBase;
+import resolution.LogicParser;
+import resolution.LogicPipeline;
+
+public class KnowledgeBaseTest {
+
+	@Test public void everyAxiomIsUsed() {
+		// The first statement alone does not give the query
+		KnowledgeBase kb = knowledgeBase("Rain => Wet\nWet => Slippery\nRain\nSlippery");
+		assertEquals(3, kb.getAxiomCount());
+		assertTrue(kb.entails(new GivenClauseResolution(false, true)));
+		assertFalse(knowledgeBase("Rain => Wet\nWet => Slippery\nSlippery\nRain").entails(new GivenClauseResolution(false, true)));
+	}
+
+	@Test public void aDisjunctionDoesNotEntailTheConjunction() {
+		// Resolving on both pairs of !A || !B and A || B at once would
+		// give the empty clause
+		KnowledgeBase kb = knowledgeBase("A || B\nA && B");
+		assertFalse(kb.entails(new GivenClauseResolution(false, true)));
+		assertFalse(kb.entails(new GivenClauseResolution(true, true)));
+		assertFalse(kb.entails(new CdclSolver()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void refusesUnsoundResolution() {
+		knowledgeBase("A || B\nA && B").entails(new GivenClauseResolution());
+	}
+
+	@Test public void aLoneQueryMustBeValid() {
+		assertTrue(knowledgeBase("A || !A").entails(new CdclSolver()));
+		assertFalse(knowledgeBase("A || B").entails(new CdclSolver()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyInput() {
+		knowledgeBase("");
+	}
+
+	@Test public void axiomsAreNotDistributedOverEachOther() {
+		// Conjoined, the three disjunctions would multiply out to eight
+		// clauses of three literals; apart they stay three clauses
+		ClauseDatabase db = knowledgeBase("A || B\nC || D\nE || F\nA").toClauses(null);
+		assertEquals(4, db.size());
+	}
+
+	@Test public void parallelConversionGivesTheSameClauses() {
+		StringBuilder logic = new StringBuilder();
+		String[] atoms = { "A", "B", "C", "D", "E", "F", "G" };
+		for(int i = 0; i < 200; i++) {
+			logic.append(atoms[i % 7]).append(" => (").append(atoms[(i * 3 + 1) % 7])
+				.append(" || !").append(atoms[(i * 5 + 2) % 7]).append(")\n");
+		}
+		logic.append("A <=> G");
+		KnowledgeBase kb = knowledgeBase(logic.toString());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(namedClauses(kb.toClauses(null)), namedClauses(kb.toClauses(pool)));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test public void pipelineConvertsEveryStatement() {
+		LogicPipeline pipeline = new LogicPipeline(LogicParser.toXML("A => B\nB => C\nA => C"));
+		pipeline.convertKnowledgeBase();
+		assertEquals(1, pipeline.getTree().getChildCount());
+		// !A || B, !B || C, A and !C
+		assertEquals(4, pipeline.getTree().getChild(0).getChildCount());
+		assertTrue(pipeline.applyResolution());
+	}
+
+	private static KnowledgeBase knowledgeBase(String logic) {
+		return new KnowledgeBase(LogicParser.toXML(logic));
+	}
+
+	// The clauses of db with atoms by name, which do not depend on the
+	// order the atoms were interned in
+	private static HashSet<HashSet<String>> namedClauses(ClauseDatabase db) {
+		HashSet<HashSet<String>> clauses = new HashSet<HashSet<String>>();
+		for(int id = 0; id < db.size(); id++) {
+			HashSet<String> clause = new HashSet<String>();
+			for(int literal : db.getClause(id)) {
+				String name = db.getAtomName(ClauseDatabase.atomOf(literal));
+				clause.add(ClauseDatabase.isNegated(literal) ? "!" + name : name);
+			}
+			clauses.add(clause);
+		}
+		assertEquals(db.size(), clauses.size());
+		return clauses;
+	}
+}
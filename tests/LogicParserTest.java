@@ -0,0 +1,102 @@
+package tests;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static tests.XMLMatcher.equivalentTo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import processing.data.XML;
+import resolution.LogicParser;
+
+public class LogicParserTest {
+
+	@Test public void parsesSingleProposition() {
+		assertParses("Rain", "<logic><Rain/></logic>");
+	}
+
+	@Test public void andBindsTighterThanOr() {
+		assertParses("A || B && C", "<logic><or><A/><and><B/><C/></and></or></logic>");
+	}
+
+	@Test public void orBindsTighterThanCondition() {
+		assertParses("A => B || C", "<logic><condition><A/><or><B/><C/></or></condition></logic>");
+	}
+
+	@Test public void conditionBindsTighterThanBicondition() {
+		assertParses("A <=> B => C", "<logic><bicondition><A/><condition><B/><C/></condition></bicondition></logic>");
+	}
+
+	@Test public void notBindsTighterThanAnd() {
+		assertParses("!A && B", "<logic><and><not><A/></not><B/></and></logic>");
+	}
+
+	@Test public void binaryOperatorsAreLeftAssociative() {
+		assertExactParse("A => B => C", "<logic><condition><condition><A/><B/></condition><C/></condition></logic>");
+		assertExactParse("A || B || C", "<logic><or><or><A/><B/></or><C/></or></logic>");
+	}
+
+	@Test public void groupsOverridePrecedence() {
+		assertParses("!(A || B) && C", "<logic><and><not><or><A/><B/></or></not><C/></and></logic>");
+	}
+
+	@Test public void eachLineIsAStatement() {
+		assertParses("A && B\nC\r\n!D", "<logic><and><A/><B/></and><C/><not><D/></not></logic>");
+	}
+
+	@Test public void emptyInputHasNoStatements() {
+		assertParses("", "<logic/>");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnbalancedParentheses() {
+		LogicParser.toXML("(A && B");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownCharacters() {
+		LogicParser.toXML("A & B");
+	}
+
+	@Test public void parsesMappedFile() throws IOException {
+		Path file = Files.createTempFile("logic", ".txt");
+		try {
+			Files.write(file, "Rain => Wet\n!(Wet || Sun)\r\nA <=> B".getBytes(StandardCharsets.US_ASCII));
+			assertEquals(LogicParser.toXML("Rain => Wet\n!(Wet || Sun)\nA <=> B").toString(), LogicParser.toXML(file).toString());
+			Files.write(file, "A && B\nA \u00e9 B".getBytes(StandardCharsets.UTF_8));
+			LogicParser.toXML(file);
+			fail("parsed a non-ASCII character");
+		}
+		catch(IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:2 "));
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	private void assertParses(String logic, String expected) {
+		assertThat(LogicParser.toXML(logic), is(equivalentTo(parse(expected))));
+	}
+
+	// XMLMatcher ignores the order of children, which cannot tell
+	// (A => B) => C from C => (A => B), so compare strings instead
+	private void assertExactParse(String logic, String expected) {
+		assertEquals(expected, LogicParser.toXML(logic).toString());
+	}
+
+	private XML parse(String xml) {
+		try {
+			return XML.parse(xml);
+		}
+		catch(Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
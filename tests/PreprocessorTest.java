@@ -0,0 +1,82 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import resolution.CdclSolver;
+import resolution.ClauseDatabase;
+import resolution.GivenClauseResolution;
+import resolution.Preprocessor;
+
+public class PreprocessorTest {
+
+	Preprocessor preprocessor = new Preprocessor(new CdclSolver());
+
+	@Test public void removesPureLiterals() {
+		// A only occurs positively; once its clauses are gone so does !B
+		ClauseDatabase db = database(new int[] {1, 2}, new int[] {1, -3}, new int[] {-2, 3}, new int[] {3, 2});
+		assertFalse(preprocessor.simplify(db));
+		assertEquals(0, db.getLiveCount());
+	}
+
+	@Test public void strengthensBySelfSubsumption() {
+		// A || B with !A || B || C leaves B || C
+		ClauseDatabase db = database(new int[] {1, 2}, new int[] {-1, 2, 3});
+		preprocessor.setMaxOccurrences(0);
+		assertFalse(preprocessor.simplify(db));
+		assertTrue(db.isRetired(1));
+		assertTrue(db.containsClause(new int[] {2, 3}));
+	}
+
+	@Test public void eliminatesVariablesWithoutGrowth() {
+		// B occurs in two clauses, which give one resolvent: A || C
+		ClauseDatabase db = database(new int[] {1, 2}, new int[] {-2, 3}, new int[] {-1, -3}, new int[] {-1, 3}, new int[] {1, -3});
+		preprocessor.setMaxOccurrences(2);
+		assertTrue(preprocessor.simplify(db));
+	}
+
+	@Test public void refusesToRecordAProof() {
+		ClauseDatabase db = database(new int[] {1}, new int[] {-1});
+		db.setProof(new resolution.ProofRecorder());
+		try {
+			preprocessor.findConflict(db);
+			fail("preprocessed with a proof attached");
+		}
+		catch(IllegalStateException e) {
+		}
+	}
+
+	@Test public void keepsTheVerdict() {
+		Random random = new Random(7);
+		for(int round = 0; round < 500; round++) {
+			int atoms = 3 + random.nextInt(5);
+			int[][] clauses = new int[2 + random.nextInt(4 * atoms)][];
+			for(int i = 0; i < clauses.length; i++) {
+				clauses[i] = new int[1 + random.nextInt(3)];
+				for(int j = 0; j < clauses[i].length; j++) {
+					clauses[i][j] = (random.nextBoolean() ? 1 : -1) * (1 + random.nextInt(atoms));
+				}
+			}
+			boolean expected = new CdclSolver().findConflict(database(clauses));
+			Preprocessor wrapped = new Preprocessor(new GivenClauseResolution(true, true));
+			wrapped.setGrowth(round % 3);
+			assertEquals("round " + round, expected, wrapped.findConflict(database(clauses)));
+		}
+	}
+
+	private static ClauseDatabase database(int[]... clauses) {
+		ClauseDatabase db = new ClauseDatabase();
+		for(int i = 0; i < clauses.length; i++) {
+			for(int literal : clauses[i]) {
+				while(db.getAtomCount() <= ClauseDatabase.atomOf(literal)) {
+					db.internAtom("A" + db.getAtomCount());
+				}
+			}
+			db.addClause(clauses[i]);
+		}
+		return db;
+	}
+}
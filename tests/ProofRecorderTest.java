@@ -0,0 +1,141 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import resolution.AllPairsResolution;
+import resolution.ClauseDatabase;
+import resolution.GivenClauseResolution;
+import resolution.LogicParser;
+import resolution.LogicPipeline;
+import resolution.ParallelResolution;
+import resolution.ProofRecorder;
+import resolution.ResolutionStrategy;
+
+public class ProofRecorderTest {
+
+	static final String CONTRADICTION = "(A || B) && (!A || B) && (A || !B) && (!A || !B)";
+
+	LogicPipeline pipeline;
+	ClauseDatabase input;	// the clauses resolution starts from
+	ProofRecorder proof = new ProofRecorder();
+
+	@Test public void complementaryUnitsGiveOneStep() throws IOException {
+		givenCnf("A && !A");
+		assertTrue(resolveWith(new GivenClauseResolution(false, true)));
+		assertTrue(proof.isRefutation());
+		assertEquals(1, proof.getStepCount());
+		assertEquals(1, proof.getPivot(0));
+		assertEquals("0\n", drat(proof));
+		assertEquals("3 0 1 2 0\n", lrat(proof));
+	}
+
+	@Test public void strictRefutationChecks() {
+		givenCnf(CONTRADICTION);
+		assertTrue(resolveWith(new GivenClauseResolution(false, true)));
+		assertTrue(proof.isRefutation());
+		assertProofChecks();
+	}
+
+	@Test public void refutationWithUnitsChecks() {
+		givenCnf("(A => B) && (B => C) && (C => D) && (D => !A) && (A || E) && (A || !E)");
+		assertTrue(resolveWith(new GivenClauseResolution(true, true)));
+		assertProofChecks();
+	}
+
+	@Test public void parallelRefutationChecks() {
+		givenCnf(CONTRADICTION + " && (C || D) && (!C || E)");
+		assertTrue(resolveWith(new ParallelResolution(new ForkJoinPool(2), 4, true, true)));
+		assertProofChecks();
+	}
+
+	@Test public void trimKeepsOnlyUsedSteps() {
+		givenCnf("(C || D) && (!C || D) && (E || !D) && " + CONTRADICTION);
+		assertTrue(resolveWith(new GivenClauseResolution(false, true)));
+		ProofRecorder trimmed = proof.trim();
+		assertTrue(trimmed.isRefutation());
+		assertTrue(trimmed.getStepCount() < proof.getStepCount());
+		proof = trimmed;
+		assertProofChecks();
+	}
+
+	@Test public void noConflictRecordsNoRefutation() {
+		givenCnf("(A || B) && (!A || C)");
+		assertFalse(resolveWith(new GivenClauseResolution(false, true)));
+		assertFalse(proof.isRefutation());
+		assertEquals(1, proof.getStepCount());
+	}
+
+	@Test(expected = IllegalStateException.class) public void multiPairResolutionRefusesToRecord() {
+		givenCnf(CONTRADICTION);
+		resolveWith(new AllPairsResolution());
+	}
+
+	private void givenCnf(String logic) {
+		pipeline = new LogicPipeline(LogicParser.toXML(logic));
+		pipeline.convertToCnf();
+		pipeline.setProof(proof);
+		input = ClauseDatabase.fromXML(pipeline.getTree().getChild(0));
+	}
+
+	private boolean resolveWith(ResolutionStrategy strategy) {
+		pipeline.setStrategy(strategy);
+		return pipeline.applyResolution();
+	}
+
+	private static String drat(ProofRecorder proof) throws IOException {
+		StringBuilder out = new StringBuilder();
+		proof.writeDrat(out);
+		return out.toString();
+	}
+
+	private static String lrat(ProofRecorder proof) throws IOException {
+		StringBuilder out = new StringBuilder();
+		proof.writeLrat(out);
+		return out.toString();
+	}
+
+	// Checks every step as LRAT does: with every literal of the step's
+	// clause false, each hint but the last must leave one literal
+	// unassigned, which is made true, and the last must be false.
+	private void assertProofChecks() {
+		HashMap<Integer,int[]> clauses = new HashMap<Integer,int[]>();
+		for(int id = 0; id < input.size(); id++) {
+			clauses.put(id + 1, input.getClause(id));
+		}
+		for(int step = 0; step < proof.getStepCount(); step++) {
+			ArrayList<Integer> trueLiterals = new ArrayList<Integer>();
+			for(int literal : proof.getClause(step)) {
+				trueLiterals.add(-literal);
+			}
+			int hints = proof.getHintCount(step);
+			for(int i = 0; i < hints; i++) {
+				int[] hint = clauses.get(proof.getHint(step, i));
+				assertNotNull("step " + step + " names an unknown clause", hint);
+				Integer unassigned = null;
+				int open = 0;
+				for(int literal : hint) {
+					assertFalse("step " + step + " hint " + i + " is satisfied", trueLiterals.contains(literal));
+					if(!trueLiterals.contains(-literal)) {
+						unassigned = literal;
+						open++;
+					}
+				}
+				if(i < hints - 1) {
+					assertEquals("step " + step + " hint " + i + " is not unit", 1, open);
+					trueLiterals.add(unassigned);
+				}
+				else {
+					assertEquals("step " + step + " ends without a conflict", 0, open);
+				}
+			}
+			clauses.put(proof.getId(step), proof.getClause(step));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import resolution.AllPairsResolution;
+import resolution.GivenClauseResolution;
+import resolution.LogicParser;
+import resolution.LogicPipeline;
+import resolution.ResolutionCounters;
+
+public class ResolutionCountersTest {
+
+	ResolutionCounters counters = new ResolutionCounters();
+	LogicPipeline pipeline;
+
+	@Test public void stagesReportTreeSizes() {
+		givenInput("A <=> B");
+		pipeline.eliminateBiconditions();
+		pipeline.eliminateConditions();
+		// logic, bicondition, A, B
+		assertEquals(4, counters.getNodesBefore("eliminateBiconditions"));
+		// logic, and, two conditions, A, B, B, A
+		assertEquals(8, counters.getNodesAfter("eliminateBiconditions"));
+		// and two nots
+		assertEquals(10, counters.getNodesAfter("eliminateConditions"));
+		assertTrue(counters.getStageNanos("eliminateBiconditions") > 0);
+		assertEquals(0, counters.getStageNanos("collapse"));
+	}
+
+	@Test public void collapseCountsDuplicatesAndTautologies() {
+		givenInput("(A || !A) && (B || C) && (B || C)");
+		pipeline.collapse();
+		assertEquals(1, counters.getDuplicatesRejected());
+		assertEquals(1, counters.getTautologiesRemoved());
+	}
+
+	@Test public void conversionCountsTautologies() {
+		// (A || B) && (!A || C) distributed over !B gives one tautology
+		givenInput("(A || B) && (!A || C) || !B");
+		pipeline.convertToCnf();
+		assertEquals(1, counters.getTautologiesRemoved());
+	}
+
+	@Test public void resolutionCountsPairs() {
+		givenInput("A && !A");
+		pipeline.convertToCnf();
+		pipeline.setStrategy(new AllPairsResolution());
+		assertTrue(pipeline.applyResolution());
+		assertEquals(1, counters.getPairsTried());
+		assertEquals(0, counters.getResolvents());
+		assertEquals(2, counters.getPeakClauses());
+	}
+
+	@Test public void resolutionCountsResolvents() {
+		// A || B and !A || B give B, which subsumes both
+		givenInput("(A || B) && (!A || B) && (C || !B)");
+		pipeline.convertToCnf();
+		pipeline.setStrategy(new GivenClauseResolution());
+		assertFalse(pipeline.applyResolution());
+		assertEquals(2, counters.getResolvents());	// B, then C
+		assertEquals(3, counters.getPeakClauses());
+		assertTrue(counters.getPairsTried() >= counters.getResolvents());
+	}
+
+	private void givenInput(String logic) {
+		pipeline = new LogicPipeline(LogicParser.toXML(logic));
+		pipeline.setListener(counters);
+	}
+}
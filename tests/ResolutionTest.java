@@ -1,12 +1,20 @@
 package tests;
 
 import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static tests.XMLMatcher.equivalentTo;
+
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
+import org.w3c.dom.Node;
 
 import processing.core.PApplet;
 import processing.data.XML;
+import resolution.CdclSolver;
+import resolution.GivenClauseResolution;
 import resolution.LogicParser;
+import resolution.ParallelResolution;
 import resolution.Resolution;
 
 public class ResolutionTest {
@@ -94,6 +102,46 @@ public class ResolutionTest {
 		assertCollapsedLogicMatches("<logic><and><or><A/><B/></or><or><B/><C/></or><or><A/><C/></or></and></logic>");
 	}
 	
+	@Test public void collapseRemovesDuplicateClauses() {
+		givenInput("(A || B) && (C || A) && (B || A)");
+		resolution.collapse();
+		assertCollapsedLogicMatches("<logic><and><or><A/><B/></or><or><C/><A/></or></and></logic>");
+	}
+	
+	@Test public void collapseKeepsTheOrderOfClausesAndLiterals() {
+		// Nested ands are merged in the order the stepwise flattening
+		// merged them, and clauses of one literal come after the others
+		givenInput("((A || B) && C) && ((D || (E || A)) && (!B && (A || B)))");
+		resolution.collapse();
+		assertCollapsedLogicMatches("<logic><and><or><D/><E/><A/></or><or><A/><B/></or><or><C/></or><or><not><B/></not></or></and></logic>");
+	}
+	
+	@Test public void collapseOfATautologyLeavesAnEmptySet() {
+		givenInput("A || (B || !A)");
+		resolution.collapse();
+		assertCollapsedLogicMatches("<logic><and/></logic>");
+	}
+	
+	@Test(timeout = 5000) public void collapseIsLinear() {
+		// (A || !B) && ((A || !B) && (... && C)), with no two clauses alike
+		// As in LogicParser, keep the DOM from checking every ancestor
+		XML tree = new XML("logic") {{
+			((Node) getNative()).getOwnerDocument().setStrictErrorChecking(false);
+		}};
+		XML node = tree;
+		for(int i = 0; i < 20000; i++) {
+			node = node.addChild("and");
+			XML clause = node.addChild("or");
+			clause.addChild(i % 2 == 0 ? "A" : "B");
+			clause.addChild("not").addChild("A" + (char)('a' + i % 26) + (char)('a' + i / 26 % 26) + (char)('a' + i / 676));
+		}
+		node.addChild("C");
+		actual = tree;
+		resolution = new Resolution(applet, actual);
+		resolution.collapse();
+		assertEquals(20001, tree.getChild(0).getChildCount());
+	}
+	
 	@Test public void applyResolutionDetectsSimpleConflict() {
 		givenInput("(A) && (!A)");
 		resolution.collapse();
@@ -118,9 +166,159 @@ public class ResolutionTest {
 		assertCollapsedLogicMatches("<logic><and><or><A/><B/></or><or><A/><C/></or></and></logic>");
 	}
 
-	// TODO: Test for applyResolution adding resolvents to the tree
-	// TODO: Figure out what resolvents are...
+	@Test public void applyResolutionAddsResolventsToTree() {
+		givenInput("(A || B) && (!A || C)");
+		resolution.collapse();
+		assertFalse(resolution.applyResolution());
+		assertCollapsedLogicMatches("<logic><and><or><A/><B/></or><or><not><A/></not><C/></or><or><B/><C/></or></and></logic>");
+	}
+	
+	@Test public void givenClauseResolutionDetectsSimpleConflict() {
+		givenInput("(A) && (!A)");
+		resolution.setStrategy(new GivenClauseResolution());
+		resolution.collapse();
+		assertTrue(resolution.applyResolution());
+	}
+	
+	@Test public void givenClauseResolutionDetectsComplexConflict() {
+		givenInput("(A || B || !C) && (A || !B) && (!A || C)");
+		resolution.setStrategy(new GivenClauseResolution());
+		resolution.collapse();
+		assertTrue(resolution.applyResolution());
+	}
+	
+	@Test public void givenClauseResolutionFindsNoConflicts() {
+		givenInput("(A || B || !C) && (A || !B) && (A || C)");
+		resolution.setStrategy(new GivenClauseResolution());
+		resolution.collapse();
+		assertFalse(resolution.applyResolution());
+	}
+
+	@Test public void unitResolutionDetectsConflictThroughUnits() {
+		givenInput("A && (!A || B) && (!B || C || D) && (!B || !D) && !C");
+		resolution.setStrategy(new GivenClauseResolution(true));
+		resolution.collapse();
+		assertTrue(resolution.applyResolution());
+	}
+	
+	@Test public void unitResolutionPropagatesUnits() {
+		givenInput("A && (!A || B) && (B || C)");
+		resolution.setStrategy(new GivenClauseResolution(true));
+		resolution.collapse();
+		assertFalse(resolution.applyResolution());
+		assertCollapsedLogicMatches("<logic><and><or><A/></or><or><B/></or></and></logic>");
+	}
+	
+	@Test public void parallelUnitResolutionMatchesGivenClauseResolution() {
+		String input = "(A || B || !C) && (A || !B) && D && (B || C || !D) && (!A || D || E) && (!E || C)";
+		givenInput(input);
+		resolution.setStrategy(new GivenClauseResolution(true));
+		resolution.collapse();
+		boolean sequential = resolution.applyResolution();
+		String expected = actual.toString();
+		givenInput(input);
+		resolution.setStrategy(new ParallelResolution(ForkJoinPool.commonPool(), 3, true));
+		resolution.collapse();
+		assertEquals(sequential, resolution.applyResolution());
+		assertCollapsedLogicMatches(expected);
+	}
+
+	@Test public void definitionalCnfAssertsTopLevelClausesDirectly() {
+		givenInput("A && (B || !C)");
+		resolution.convertToDefinitionalCnf(true);
+		assertCollapsedLogicMatches("<logic><and><or><A/></or><or><not><C/></not><B/></or></and></logic>");
+	}
+	
+	@Test public void definitionalCnfNamesSubformulas() {
+		givenInput("(A && B) || C");
+		resolution.convertToDefinitionalCnf(true);
+		assertCollapsedLogicMatches("<logic><and><or><not><aux1/></not><A/></or><or><not><aux1/></not><B/></or><or><aux1/><C/></or></and></logic>");
+	}
+	
+	@Test public void definitionalCnfSharesRepeatedSubformulas() {
+		givenInput("((A && B) || C) && ((A && B) || D)");
+		resolution.convertToDefinitionalCnf(true);
+		assertCollapsedLogicMatches("<logic><and><or><not><aux1/></not><A/></or><or><not><aux1/></not><B/></or><or><aux1/><C/></or><or><aux1/><D/></or></and></logic>");
+	}
+	
+	@Test public void definitionalCnfStaysLinear() {
+		String input = "(Aa && Ba)";
+		for(char c = 'b'; c <= 'z'; c++) {
+			input += " || (A" + c + " && B" + c + ")";
+		}
+		givenInput(input);
+		resolution.convertToDefinitionalCnf(true);
+		assertEquals(26 * 2 + 1, actual.getChild(0).getChildCount());
+	}
+	
+	@Test public void definitionalCnfPreservesConflicts() {
+		givenInput("(A <=> B) && (B <=> C) && A && !C");
+		resolution.convertToDefinitionalCnf(false);
+		resolution.setStrategy(new GivenClauseResolution());
+		assertTrue(resolution.applyResolution());
+	}
+
+	@Test public void parallelResolutionDetectsComplexConflict() {
+		givenInput("(A || B || !C) && (A || !B) && (!A || C)");
+		resolution.setStrategy(new ParallelResolution(ForkJoinPool.commonPool(), 2));
+		resolution.collapse();
+		assertTrue(resolution.applyResolution());
+	}
+	
+	@Test public void parallelResolutionMatchesGivenClauseResolution() {
+		givenInput("(A || B || !C) && (A || !B) && (A || C) && (B || C || !D) && (!A || D)");
+		resolution.setStrategy(new GivenClauseResolution());
+		resolution.collapse();
+		boolean sequential = resolution.applyResolution();
+		String expected = actual.toString();
+		givenInput("(A || B || !C) && (A || !B) && (A || C) && (B || C || !D) && (!A || D)");
+		resolution.setStrategy(new ParallelResolution(ForkJoinPool.commonPool(), 3));
+		resolution.collapse();
+		assertEquals(sequential, resolution.applyResolution());
+		assertCollapsedLogicMatches(expected);
+	}
+	
+	@Test public void cdclDetectsComplexConflict() {
+		givenInput("(A || B) && (!A || B) && (A || !B) && (!A || !B)");
+		resolution.setStrategy(new CdclSolver());
+		resolution.collapse();
+		assertTrue(resolution.applyResolution());
+	}
 	
+	@Test public void cdclFindsNoConflicts() {
+		givenInput("(A || B || !C) && (A || !B) && (A || C)");
+		resolution.setStrategy(new CdclSolver());
+		resolution.collapse();
+		assertFalse(resolution.applyResolution());
+	}
+	
+	@Test public void cdclDetectsConflictInDefinitionalCnf() {
+		givenInput("(A <=> B) && (B <=> C) && A && !C");
+		resolution.convertToDefinitionalCnf(true);
+		resolution.setStrategy(new CdclSolver());
+		assertTrue(resolution.applyResolution());
+	}
+
+	@Test public void convertToCnfNegatesBicondition() {
+		givenInput("!(A <=> B)");
+		resolution.convertToCnf();
+		assertThat(actual, is(equivalentTo(parse("<logic><and><or><A/><B/></or><or><not><A/></not><not><B/></not></or></and></logic>"))));
+	}
+
+	@Test public void convertToCnfMatchesStagedConversion() {
+		String input = "!(A => (B && !C)) || (D <=> !B)";
+		givenInput(input);
+		resolution.eliminateBiconditions();
+		resolution.eliminateConditions();
+		resolution.moveNegationInwards();
+		resolution.distributeOrsOverAnds();
+		resolution.collapse();
+		XML expected = actual;
+		givenInput(input);
+		resolution.convertToCnf();
+		assertThat(actual, is(equivalentTo(expected)));
+	}
+
 	private void givenInput(String input) {
 		actual = LogicParser.toXML(input);
 		resolution = new Resolution(applet, actual);
@@ -136,4 +334,13 @@ public class ResolutionTest {
 		assertEquals(expected, actual.toString());
 	}
 
+	private XML parse(String xml) {
+		try {
+			return XML.parse(xml);
+		}
+		catch(Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
 }
@@ -0,0 +1,79 @@
+package tests;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+import static tests.XMLMatcher.equivalentTo;
+
+import org.junit.Test;
+
+import processing.data.XML;
+import resolution.CdclSolver;
+import resolution.ResultCache;
+
+public class ResultCacheTest {
+
+	ResultCache cache = new ResultCache(2);
+
+	@Test public void renamedAtomsHitTheCache() {
+		assertFalse(cache.solve("A => (B || C)", new CdclSolver()));
+		assertFalse(cache.solve("X => (Y || Z)", new CdclSolver()));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test public void reorderedOperandsHitTheCache() {
+		assertTrue(cache.solve("(A && !B) && (B || !A)", new CdclSolver()));
+		assertTrue(cache.solve("(!Q || P) && (!P && Q)", new CdclSolver()));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test public void conditionsAreNotReordered() {
+		cache.solve("A => !B", new CdclSolver());
+		cache.solve("!B => A", new CdclSolver());
+		assertEquals(0, cache.getHits());
+	}
+
+	@Test public void leastRecentlyUsedEntryIsEvicted() {
+		cache.solve("A", new CdclSolver());
+		cache.solve("A && B", new CdclSolver());
+		cache.solve("B", new CdclSolver());
+		// A && B is now the least recently used entry
+		cache.solve("A || B", new CdclSolver());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+		cache.solve("C || D", new CdclSolver());
+		assertEquals(2, cache.getHits());
+		cache.solve("C && D", new CdclSolver());
+		assertEquals(2, cache.getHits());
+	}
+
+	@Test public void aCacheOfOneKeepsOnlyTheLatestFormula() {
+		ResultCache small = new ResultCache(1);
+		small.solve("A || B", new CdclSolver());
+		small.solve("A && B", new CdclSolver());
+		assertEquals(1, small.size());
+		// A || B was evicted, so its renaming misses
+		small.solve("C || D", new CdclSolver());
+		assertEquals(0, small.getHits());
+		small.solve("D || E", new CdclSolver());
+		assertEquals(1, small.getHits());
+		assertEquals(3, small.getMisses());
+	}
+
+	@Test public void cachedCnfUsesTheCallersAtoms() {
+		cache.toCnf("A || (B && C)");
+		XML cnf = cache.toCnf("X || (Z && Y)");
+		assertEquals(1, cache.getHits());
+		assertThat(cnf, is(equivalentTo(parse("<and><or><X/><Z/></or><or><X/><Y/></or></and>"))));
+	}
+
+	private XML parse(String xml) {
+		try {
+			return XML.parse(xml);
+		}
+		catch(Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import processing.data.XML;
+import resolution.LogicParser;
+import resolution.TreeLayout;
+
+public class TreeLayoutTest {
+
+	@Test public void parentIsCentredOverChildren() {
+		TreeLayout layout = new TreeLayout(LogicParser.toXML("A && B"));
+		// logic, and, A, B in preorder
+		assertEquals(0.0, layout.getX(2), 0);
+		assertEquals(1.0, layout.getX(3), 0);
+		assertEquals(0.5, layout.getX(1), 0);
+		assertEquals(0.5, layout.getX(0), 0);
+		assertEquals(1.0, layout.getWidth(), 0);
+		assertEquals(3, layout.getHeight());
+	}
+
+	@Test public void siblingsClearEachOthersSubtrees() {
+		// The right subtree of the left operand is deeper than the left
+		// subtree of the right one, so the operands are pushed apart
+		TreeLayout layout = new TreeLayout(LogicParser.toXML("(A || (B && C)) <=> ((D && E) || F)"));
+		assertNoOverlaps(layout);
+		assertNoOverlaps(new TreeLayout(LogicParser.toXML("(A || B || C || D) && !(!(E => F)) && (G <=> (H || I))")));
+	}
+
+	@Test public void subtreeExtentsCoverTheirNodes() {
+		TreeLayout layout = new TreeLayout(LogicParser.toXML("(A || (B && C)) => !(D || E)"));
+		for(int i = 0; i < layout.size(); i++) {
+			assertTrue(layout.getSubtreeEnd(i) > i);
+			for(int j = i; j < layout.getSubtreeEnd(i); j++) {
+				assertTrue(layout.getX(j) >= layout.getSubtreeMinX(i));
+				assertTrue(layout.getX(j) <= layout.getSubtreeMaxX(i));
+				assertTrue(layout.getDepth(j) <= layout.getSubtreeMaxDepth(i));
+			}
+		}
+		assertEquals(layout.size(), layout.getSubtreeEnd(0));
+		assertEquals(0.0, layout.getSubtreeMinX(0), 0);
+		assertEquals(layout.getWidth(), layout.getSubtreeMaxX(0), 0);
+	}
+
+	@Test(timeout = 5000) public void deepChainIsLaidOut() {
+		// As in LogicParser, keep the DOM from checking every ancestor
+		XML root = new XML("logic") {{
+			((Node) getNative()).getOwnerDocument().setStrictErrorChecking(false);
+		}};
+		XML node = root;
+		for(int i = 0; i < 20000; i++) {
+			node = node.addChild("not");
+			node.addChild("A");
+		}
+		TreeLayout layout = new TreeLayout(root);
+		assertEquals(40001, layout.size());
+		assertEquals(20002, layout.getHeight());
+		assertNoOverlaps(layout);
+	}
+
+	// Nodes on the same level are at least one slot apart
+	private static void assertNoOverlaps(TreeLayout layout) {
+		ArrayList<ArrayList<Double>> levels = new ArrayList<ArrayList<Double>>();
+		for(int i = 0; i < layout.size(); i++) {
+			while(levels.size() <= layout.getDepth(i)) {
+				levels.add(new ArrayList<Double>());
+			}
+			levels.get(layout.getDepth(i)).add(layout.getX(i));
+		}
+		for(ArrayList<Double> level : levels) {
+			Collections.sort(level);
+			for(int i = 1; i < level.size(); i++) {
+				assertTrue(level.get(i) - level.get(i-1) >= 1 - 1e-9);
+			}
+		}
+	}
+}